@@ -0,0 +1,303 @@
+package assign2;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * 
+ * @author Xu Wang
+ * 
+ *         A thread-safe double-ended queue of fixed capacity for handing items
+ *         from producer threads to consumer threads.
+ * 
+ *         Mechanism:
+ * 
+ *         1. Items are kept in a circular array allocated once, so memory is
+ *         bounded by the capacity however far producers run ahead.
+ * 
+ *         2. A put blocks (or times out) while the deque is full and a take
+ *         blocks while it is empty, on two conditions of one lock. Separate
+ *         head and tail locks only work for a queue, where each end has its own
+ *         side; here both ends can be added to and removed from, so one lock
+ *         guards both.
+ * 
+ *         3. Before parking, a waiting thread spins for a short while on the
+ *         volatile count, so a hand-off that is about to happen does not pay
+ *         for a park and unpark.
+ *
+ * @param <Item> a generic data type stored in deque
+ */
+public class BoundedBlockingDeque<Item> {
+	private static final int SPINS = 128; // spins before parking
+
+	private final Item[] items; // circular array
+	private int head; // index of the first item
+	private volatile int count; // number of items, read without the lock by spinners
+	private final ReentrantLock lock;
+	private final Condition notEmpty;
+	private final Condition notFull;
+
+	/**
+	 * construct an empty deque of a fixed capacity
+	 * 
+	 * @param capacity the largest number of items the deque holds
+	 */
+	public BoundedBlockingDeque(int capacity) {
+		if (capacity <= 0) {
+			throw new java.lang.IllegalArgumentException("capacity must be positive");
+		}
+		items = (Item[]) new Object[capacity];
+		head = 0;
+		count = 0;
+		lock = new ReentrantLock();
+		notEmpty = lock.newCondition();
+		notFull = lock.newCondition();
+	}
+
+	/**
+	 * tell if deque is empty or not
+	 * 
+	 * @return true if deque is empty, else false
+	 */
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * tell the size of deque
+	 * 
+	 * @return number of items in deque
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * tell how many more items can be added without blocking
+	 * 
+	 * @return capacity minus size
+	 */
+	public int remainingCapacity() {
+		return items.length - count;
+	}
+
+	/**
+	 * add an item to the front, waiting while deque is full
+	 * 
+	 * @param item item to be inserted
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void putFirst(Item item) throws InterruptedException {
+		offerFirst(item, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * add an item to the end, waiting while deque is full
+	 * 
+	 * @param item item to be inserted
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void putLast(Item item) throws InterruptedException {
+		offerLast(item, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * add an item to the front, waiting up to a timeout while deque is full
+	 * 
+	 * @param item item to be inserted
+	 * @param timeout how long to wait
+	 * @param unit unit of timeout
+	 * @return true if the item was added, false if the timeout elapsed first
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean offerFirst(Item item, long timeout, TimeUnit unit) throws InterruptedException {
+		return offer(item, true, unit.toNanos(timeout));
+	}
+
+	/**
+	 * add an item to the end, waiting up to a timeout while deque is full
+	 * 
+	 * @param item item to be inserted
+	 * @param timeout how long to wait
+	 * @param unit unit of timeout
+	 * @return true if the item was added, false if the timeout elapsed first
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean offerLast(Item item, long timeout, TimeUnit unit) throws InterruptedException {
+		return offer(item, false, unit.toNanos(timeout));
+	}
+
+	/**
+	 * remove and return the front item, waiting while deque is empty
+	 * 
+	 * @return the item used to be the front of deque
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Item takeFirst() throws InterruptedException {
+		return poll(true, Long.MAX_VALUE);
+	}
+
+	/**
+	 * remove and return the end item, waiting while deque is empty
+	 * 
+	 * @return the item used to be the end of deque
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Item takeLast() throws InterruptedException {
+		return poll(false, Long.MAX_VALUE);
+	}
+
+	/**
+	 * remove and return the front item, waiting up to a timeout while deque is
+	 * empty
+	 * 
+	 * @param timeout how long to wait
+	 * @param unit unit of timeout
+	 * @return the item used to be the front of deque, or null on timeout
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Item pollFirst(long timeout, TimeUnit unit) throws InterruptedException {
+		return poll(true, unit.toNanos(timeout));
+	}
+
+	/**
+	 * remove and return the end item, waiting up to a timeout while deque is
+	 * empty
+	 * 
+	 * @param timeout how long to wait
+	 * @param unit unit of timeout
+	 * @return the item used to be the end of deque, or null on timeout
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Item pollLast(long timeout, TimeUnit unit) throws InterruptedException {
+		return poll(false, unit.toNanos(timeout));
+	}
+
+	/**
+	 * remove up to max items from the front and add them, in order, to a
+	 * collection, without waiting
+	 * 
+	 * @param target collection receiving the items
+	 * @param max the largest number of items to move
+	 * @return the number of items moved
+	 */
+	public int drainTo(Collection<? super Item> target, int max) {
+		if (target == null) {
+			throw new java.lang.NullPointerException("draining to a null collection");
+		}
+		lock.lock();
+		try {
+			int n = Math.min(max, count);
+			int moved = 0;
+			try {
+				while (moved < n) {
+					target.add(items[head]);
+					items[head] = null; // avoid of loitering
+					head = (head + 1) % items.length;
+					moved++;
+				}
+			} finally {
+				if (moved > 0) {
+					count -= moved;
+					notFull.signalAll();
+				}
+			}
+			return moved;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * a helper method adding an item at one end, waiting up to nanos
+	 */
+	private boolean offer(Item item, boolean atFront, long nanos) throws InterruptedException {
+		if (item == null) {
+			throw new java.lang.NullPointerException("adding a null item");
+		}
+		for (int i = 0; i < SPINS && count == items.length; i++)
+			Thread.onSpinWait();
+		lock.lockInterruptibly();
+		try {
+			while (count == items.length) {
+				if (nanos <= 0)
+					return false;
+				nanos = notFull.awaitNanos(nanos);
+			}
+			if (atFront) {
+				head = (head - 1 + items.length) % items.length;
+				items[head] = item;
+			} else {
+				items[(head + count) % items.length] = item;
+			}
+			count++;
+			notEmpty.signal();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/*
+	 * a helper method removing an item from one end, waiting up to nanos
+	 */
+	private Item poll(boolean atFront, long nanos) throws InterruptedException {
+		for (int i = 0; i < SPINS && count == 0; i++)
+			Thread.onSpinWait();
+		lock.lockInterruptibly();
+		try {
+			while (count == 0) {
+				if (nanos <= 0)
+					return null;
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			int index = atFront ? head : (head + count - 1) % items.length;
+			Item item = items[index];
+			items[index] = null; // avoid of loitering
+			if (atFront)
+				head = (head + 1) % items.length;
+			count--;
+			notFull.signal();
+			return item;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// unit testing (optional)
+	public static void main(String[] args) throws InterruptedException {
+		final int n = 1000000;
+		final BoundedBlockingDeque<Integer> deque = new BoundedBlockingDeque<Integer>(1024);
+
+		Thread producer = new Thread(() -> {
+			try {
+				for (int i = 0; i < n; i++)
+					deque.putLast(i);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		long start = System.nanoTime();
+		producer.start();
+
+		boolean inOrder = true;
+		java.util.ArrayList<Integer> batch = new java.util.ArrayList<Integer>();
+		int received = 0;
+		while (received < n) {
+			if (deque.drainTo(batch, 256) == 0) {
+				batch.add(deque.takeFirst());
+			}
+			for (int item : batch)
+				inOrder &= item == received++;
+			batch.clear();
+		}
+		producer.join();
+		StdOut.println("received " + received + " items in " + (System.nanoTime() - start) / 1000000 + " ms");
+		StdOut.println("in order? " + inOrder);
+		StdOut.println("poll on empty: " + deque.pollFirst(10, TimeUnit.MILLISECONDS));
+	}
+
+}
@@ -0,0 +1,257 @@
+package assign2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * 
+ * @author Xu Wang
+ * 
+ *         A reader that splits its input into whitespace-separated tokens by
+ *         looking at raw bytes, without Scanner or regular expressions.
+ * 
+ *         A file is memory-mapped one window at a time; any other stream is
+ *         read through a direct buffer. A token is only a range of the buffer
+ *         until token() is called, so the caller decides which tokens become
+ *         Strings.
+ * 
+ *         A file can also be read over a byte range [from, to): the range owns
+ *         the tokens whose first byte lies inside it, so ranges cut at arbitrary
+ *         offsets still split the tokens of a file exactly between them.
+ * 
+ *         Whitespace is the ASCII set (space, \t, \n, \u000B, \f, \r) and
+ *         tokens are decoded as UTF-8, the encoding StdIn uses.
+ *
+ */
+public class ByteTokenizer implements Closeable {
+	private static final int WINDOW = 1 << 30; // bytes mapped at a time
+	private static final int BUFFER = 1 << 20; // initial direct buffer size
+
+	private final FileChannel file; // mapped input, or null
+	private final ReadableByteChannel stream; // streamed input, or null
+	private final long fileSize;
+	private final long end; // tokens starting at or after this offset are not ours
+	private ByteBuffer buffer; // bytes [0, limit) are valid input
+	private long base; // offset in the input of buffer index 0
+	private int start; // buffer index of the current token
+	private int length; // length in bytes of the current token
+
+	/**
+	 * construct a tokenizer that memory-maps a file
+	 * 
+	 * @param path the file to read
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	public ByteTokenizer(Path path) throws IOException {
+		this(path, 0, Long.MAX_VALUE);
+	}
+
+	/**
+	 * construct a tokenizer that memory-maps a file and returns the tokens
+	 * starting in [from, to); the last of them may extend past to
+	 * 
+	 * @param path the file to read
+	 * @param from offset of the first byte of the range
+	 * @param to offset one past the last byte of the range
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	public ByteTokenizer(Path path, long from, long to) throws IOException {
+		if (from < 0 || to < from) {
+			throw new java.lang.IllegalArgumentException("invalid range [" + from + ", " + to + ")");
+		}
+		file = FileChannel.open(path, StandardOpenOption.READ);
+		stream = null;
+		fileSize = file.size();
+		end = to;
+		base = Math.min(from == 0 ? 0 : from - 1, fileSize);
+		buffer = file.map(FileChannel.MapMode.READ_ONLY, base, Math.min(WINDOW, fileSize - base));
+		if (from > 0) {
+			// a token running into the range started before it, so skip it
+			int p = 0;
+			while (true) {
+				if (p == buffer.limit()) {
+					boolean more = refill(p);
+					p = 0;
+					if (!more)
+						break;
+					continue;
+				}
+				if (isWhitespace(buffer.get(p)))
+					break;
+				p++;
+			}
+			start = p;
+		}
+	}
+
+	/**
+	 * tell the size of the file to be mapped
+	 * 
+	 * @param path the file
+	 * @return the size of the file in bytes
+	 * @throws IOException if the size cannot be read
+	 */
+	public static long sizeOf(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return channel.size();
+		}
+	}
+
+	/**
+	 * construct a tokenizer that reads a stream through a direct buffer
+	 * 
+	 * @param in the stream to read, e.g. System.in
+	 */
+	public ByteTokenizer(InputStream in) {
+		file = null;
+		stream = Channels.newChannel(in);
+		fileSize = -1;
+		end = Long.MAX_VALUE;
+		base = 0;
+		buffer = ByteBuffer.allocateDirect(BUFFER);
+		buffer.limit(0);
+	}
+
+	/**
+	 * move to the next token
+	 * 
+	 * @return true if there is a next token, false at the end of input
+	 * @throws IOException if reading fails
+	 */
+	public boolean advance() throws IOException {
+		int p = start + length;
+		// skip whitespace
+		while (true) {
+			if (p == buffer.limit()) {
+				boolean more = refill(p);
+				p = 0;
+				if (!more) {
+					start = length = 0;
+					return false;
+				}
+				continue;
+			}
+			if (!isWhitespace(buffer.get(p)))
+				break;
+			p++;
+		}
+		if (base + p >= end) {
+			start = p;
+			length = 0;
+			return false; // the token belongs to the next range
+		}
+		// find the end of the token
+		int q = p + 1;
+		while (true) {
+			if (q == buffer.limit()) {
+				boolean more = refill(p);
+				q -= p;
+				p = 0;
+				if (!more)
+					break; // the token ends with the input
+				continue;
+			}
+			if (isWhitespace(buffer.get(q)))
+				break;
+			q++;
+		}
+		start = p;
+		length = q - p;
+		return true;
+	}
+
+	/**
+	 * decode the current token
+	 * 
+	 * @return the current token as a String
+	 */
+	public String token() {
+		byte[] bytes = new byte[length];
+		buffer.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * tell the offset of the current token in the input
+	 * 
+	 * @return the byte offset where the current token starts
+	 */
+	public long offset() {
+		return base + start;
+	}
+
+	/*
+	 * a helper method discarding the bytes before index keep and appending
+	 * more input; index i becomes index i - keep
+	 * 
+	 * @return true if new bytes were added, false at the end of input
+	 */
+	private boolean refill(int keep) throws IOException {
+		if (file != null) {
+			boolean more = base + buffer.limit() < fileSize;
+			if (more && keep == 0) {
+				throw new java.lang.IllegalStateException("token longer than " + WINDOW + " bytes");
+			}
+			base += keep;
+			buffer = file.map(FileChannel.MapMode.READ_ONLY, base, Math.min(WINDOW, fileSize - base));
+			return more;
+		}
+
+		if (keep == 0 && buffer.limit() == buffer.capacity()) {
+			// a token fills the whole buffer, so make room for the rest of it
+			ByteBuffer larger = ByteBuffer.allocateDirect(2 * buffer.capacity());
+			larger.put(buffer.position(0));
+			buffer = larger.flip();
+		}
+		buffer.position(keep);
+		buffer.compact(); // kept bytes move to the front, ready for writing
+		base += keep;
+		int read = 0;
+		while (read == 0)
+			read = stream.read(buffer);
+		buffer.flip();
+		buffer.position(0);
+		return read > 0;
+	}
+
+	// a helper method telling if a byte is ASCII whitespace
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || (b >= '\t' && b <= '\r');
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		if (file != null)
+			file.close();
+		else
+			stream.close();
+	}
+
+	// unit testing (optional)
+	public static void main(String[] args) throws IOException {
+		ByteTokenizer tokens = args.length > 0 ? new ByteTokenizer(Path.of(args[0])) : new ByteTokenizer(System.in);
+		long count = 0;
+		while (tokens.advance()) {
+			if (count < 10)
+				StdOut.println(tokens.offset() + ": " + tokens.token());
+			count++;
+		}
+		tokens.close();
+		StdOut.println("tokens = " + count);
+	}
+
+}
@@ -0,0 +1,232 @@
+package assign2;
+
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * 
+ * @author Xu Wang
+ * 
+ *         A thread-safe variant of RandomizedQueue that can be shared between
+ *         threads without an external lock.
+ * 
+ *         Mechanism:
+ * 
+ *         1. Items are kept in a fixed number of stripes, each of which is an
+ *         ordinary RandomizedQueue guarded by its own lock.
+ * 
+ *         2. A thread always enqueues to its own stripe, so producers on
+ *         different threads never contend with each other.
+ * 
+ *         3. Each stripe publishes its size in an atomic array, written under
+ *         the stripe's lock. dequeue() and sample() read the sizes without
+ *         locking, pick a stripe with probability proportional to its size and
+ *         then choose uniformly inside it, so every item is chosen with
+ *         probability 1/n when no other thread changes the queue in between.
+ *         If the picked stripe has been emptied meanwhile, the pick is made
+ *         again from fresh sizes; under concurrent updates the choice is
+ *         uniform over the sizes that were read.
+ * 
+ *         size() is maintained by a LongAdder rather than a single counter, so
+ *         it is exact when the queue is quiescent and a close estimate under
+ *         concurrent updates.
+ *
+ * @param <Item> a generic data type stored in ConcurrentRandomizedQueue
+ */
+public class ConcurrentRandomizedQueue<Item> implements Iterable<Item> {
+	private static final int MAX_STRIPES = 64;
+	private static final int PAD = 16; // ints per size, one cache line apart
+	private static final AtomicInteger nextThreadIndex = new AtomicInteger();
+	// stripe index of each thread, assigned round robin on first use
+	private static final ThreadLocal<Integer> threadIndex = ThreadLocal
+			.withInitial(() -> nextThreadIndex.getAndIncrement());
+
+	private final RandomizedQueue<Item>[] stripes;
+	private final int mask; // number of stripes - 1, a power of two minus one
+	private final AtomicIntegerArray sizes; // size of stripe i at i * PAD
+	private final LongAdder size;
+
+	/**
+	 * construct an empty queue with one stripe per available processor
+	 */
+	public ConcurrentRandomizedQueue() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * construct an empty queue with at least the given number of stripes
+	 * 
+	 * @param concurrency the expected number of threads sharing the queue
+	 */
+	public ConcurrentRandomizedQueue(int concurrency) {
+		if (concurrency <= 0) {
+			throw new java.lang.IllegalArgumentException("concurrency must be positive");
+		}
+		int n = 1;
+		while (n < concurrency && n < MAX_STRIPES)
+			n <<= 1;
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		RandomizedQueue<Item>[] array = (RandomizedQueue<Item>[]) new RandomizedQueue[n];
+		stripes = array;
+		for (int i = 0; i < n; i++) {
+			stripes[i] = new RandomizedQueue<Item>();
+		}
+		mask = n - 1;
+		sizes = new AtomicIntegerArray(n * PAD);
+		size = new LongAdder();
+	}
+
+	/**
+	 * check if the queue is empty or not
+	 * 
+	 * @return true if the queue is empty, else false
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * tell the number of items on the queue
+	 * 
+	 * @return the number of items on the queue
+	 */
+	public int size() {
+		return (int) Math.max(0, size.sum());
+	}
+
+	/**
+	 * add an item to the stripe of the calling thread
+	 * 
+	 * @param item item to be inserted
+	 */
+	public void enqueue(Item item) {
+		if (item == null) {
+			throw new java.lang.NullPointerException("adding a null item");
+		}
+		int i = threadIndex.get() & mask;
+		RandomizedQueue<Item> stripe = stripes[i];
+		synchronized (stripe) {
+			stripe.enqueue(item);
+			sizes.set(i * PAD, stripe.size());
+		}
+		size.increment();
+	}
+
+	/**
+	 * remove a random selected item and return it
+	 * 
+	 * @return a random selected item used to be in the queue
+	 */
+	public Item dequeue() {
+		while (true) {
+			int i = pickStripe();
+			RandomizedQueue<Item> stripe = stripes[i];
+			synchronized (stripe) {
+				if (!stripe.isEmpty()) {
+					Item chosenItem = stripe.dequeue();
+					sizes.set(i * PAD, stripe.size());
+					size.decrement();
+					return chosenItem;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return a random selected item
+	 */
+	public Item sample() {
+		while (true) {
+			RandomizedQueue<Item> stripe = stripes[pickStripe()];
+			synchronized (stripe) {
+				if (!stripe.isEmpty())
+					return stripe.sample();
+			}
+		}
+	}
+
+	/*
+	 * a helper method picking a stripe with probability proportional to its
+	 * published size, throwing if every stripe is empty
+	 */
+	private int pickStripe() {
+		long total = 0;
+		for (int i = 0; i < stripes.length; i++)
+			total += sizes.get(i * PAD);
+		if (total == 0)
+			throw new java.util.NoSuchElementException("empty queue");
+		long r = ThreadLocalRandom.current().nextLong(total);
+		// sizes may have changed since they were summed; the last non-empty
+		// stripe seen takes what is left
+		int chosen = 0;
+		for (int i = 0; i < stripes.length; i++) {
+			int stripeSize = sizes.get(i * PAD);
+			if (stripeSize == 0)
+				continue;
+			chosen = i;
+			if (r < stripeSize)
+				break;
+			r -= stripeSize;
+		}
+		return chosen;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * the iterator works on a copy of the items taken stripe by stripe, so it
+	 * never blocks writers for longer than a single stripe copy and never
+	 * throws on concurrent modification
+	 * 
+	 * @see java.lang.Iterable#iterator()
+	 */
+	@Override
+	public Iterator<Item> iterator() {
+		RandomizedQueue<Item> copy = new RandomizedQueue<Item>();
+		for (RandomizedQueue<Item> stripe : stripes) {
+			synchronized (stripe) {
+				for (Item item : stripe)
+					copy.enqueue(item);
+			}
+		}
+		return copy.iterator();
+	}
+
+	// unit testing (optional)
+	public static void main(String[] args) throws InterruptedException {
+		final int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		final int perThread = 100000;
+		final ConcurrentRandomizedQueue<Integer> queue = new ConcurrentRandomizedQueue<Integer>(threads);
+
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final int id = t;
+			workers[t] = new Thread(() -> {
+				for (int i = 0; i < perThread; i++)
+					queue.enqueue(id * perThread + i);
+				for (int i = 0; i < perThread / 2; i++)
+					queue.dequeue();
+			});
+		}
+		long start = System.nanoTime();
+		for (Thread worker : workers)
+			worker.start();
+		for (Thread worker : workers)
+			worker.join();
+		long elapsed = System.nanoTime() - start;
+
+		StdOut.println("threads = " + threads);
+		StdOut.println("size = " + queue.size() + " (expected " + threads * (perThread - perThread / 2) + ")");
+		StdOut.println("elapsed = " + elapsed / 1000000 + " ms");
+
+		int counted = 0;
+		for (Integer i : queue)
+			counted++;
+		StdOut.println("iterated = " + counted);
+	}
+
+}
@@ -1,7 +1,14 @@
 package assign2;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import edu.princeton.cs.algs4.StdOut;
 
 /**
@@ -138,6 +145,142 @@ public class Deque<Item> implements Iterable<Item> {
 		return oldLastNode.item;
 	}
 
+	/**
+	 * add all items of a collection to the end of deque, in iteration order
+	 * 
+	 * @param items items to be inserted
+	 */
+	public void addAllLast(Collection<? extends Item> items) {
+		splice(chain(items));
+	}
+
+	/**
+	 * add all items of an array to the end of deque, in array order
+	 * 
+	 * @param items items to be inserted
+	 */
+	public void addAllLast(Item[] items) {
+		splice(chain(Arrays.asList(items)));
+	}
+
+	/**
+	 * add all items of a collection to the front of deque, keeping their
+	 * iteration order, i.e. the first item of the collection becomes the
+	 * front of deque
+	 * 
+	 * @param items items to be inserted
+	 */
+	public void addAllFirst(Collection<? extends Item> items) {
+		linkFirst(chain(items));
+	}
+
+	/**
+	 * add all items of an array to the front of deque, keeping array order
+	 * 
+	 * @param items items to be inserted
+	 */
+	public void addAllFirst(Item[] items) {
+		linkFirst(chain(Arrays.asList(items)));
+	}
+
+	/**
+	 * remove up to max items from the front and add them, in order, to a
+	 * collection
+	 * 
+	 * @param target collection receiving the items
+	 * @param max the largest number of items to move
+	 * @return the number of items moved
+	 */
+	public int drainTo(Collection<? super Item> target, int max) {
+		if (target == null) {
+			throw new java.lang.NullPointerException("draining to a null collection");
+		}
+		Node current = sentinel.next;
+		int moved = 0;
+		try {
+			while (moved < max && current != sentinel) {
+				target.add(current.item);
+				current = current.next;
+				moved++;
+			}
+		} finally {
+			// unlink the moved nodes at once
+			sentinel.next = current;
+			current.prev = sentinel;
+			size -= moved;
+		}
+		return moved;
+	}
+
+	/**
+	 * move all items of another deque to the end of this one in O(1), leaving
+	 * the other deque empty
+	 * 
+	 * @param other deque whose items are appended
+	 */
+	public void splice(Deque<Item> other) {
+		if (other == this) {
+			throw new java.lang.IllegalArgumentException("splicing a deque into itself");
+		}
+		if (other.isEmpty())
+			return;
+		Node first = other.sentinel.next;
+		Node last = other.sentinel.prev;
+		other.sentinel.prev = other.sentinel.next = other.sentinel;
+		int n = other.size;
+		other.size = 0;
+
+		Node oldLastNode = sentinel.prev;
+		oldLastNode.next = first;
+		first.prev = oldLastNode;
+		last.next = sentinel;
+		sentinel.prev = last;
+		size += n;
+	}
+
+	/*
+	 * a helper method building a chain of unlinked nodes from a collection;
+	 * nothing is linked into deque until every item has been checked
+	 * 
+	 * @return a detached deque whose sentinel holds the chain
+	 */
+	private Deque<Item> chain(Collection<? extends Item> items) {
+		if (items == null) {
+			throw new java.lang.NullPointerException("adding a null collection");
+		}
+		Deque<Item> chain = new Deque<Item>();
+		Node last = chain.sentinel;
+		for (Item item : items) {
+			if (item == null) {
+				throw new java.lang.NullPointerException("adding a null item");
+			}
+			Node newNode = new Node();
+			newNode.item = item;
+			newNode.prev = last;
+			last.next = newNode;
+			last = newNode;
+			chain.size++;
+		}
+		last.next = chain.sentinel;
+		chain.sentinel.prev = last;
+		return chain;
+	}
+
+	// a helper method linking a chain to the front of deque
+	private void linkFirst(Deque<Item> chain) {
+		if (chain.isEmpty())
+			return;
+		Node first = chain.sentinel.next;
+		Node last = chain.sentinel.prev;
+
+		Node oldFirstNode = sentinel.next;
+		sentinel.next = first;
+		first.prev = sentinel;
+		last.next = oldFirstNode;
+		oldFirstNode.prev = last;
+		size += chain.size;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -197,6 +340,131 @@ public class Deque<Item> implements Iterable<Item> {
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Iterable#spliterator()
+	 */
+	@Override
+	public Spliterator<Item> spliterator() {
+		return new DequeSpliterator();
+	}
+
+	/**
+	 * @return a sequential stream over deque, front to end
+	 */
+	public Stream<Item> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	/**
+	 * @return a parallel stream over deque, front to end
+	 */
+	public Stream<Item> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+
+	/*
+	 * an inner class that defines the spliterator of deque
+	 * 
+	 * a linked list cannot be cut in the middle without walking to it, so a
+	 * split copies the next batch of nodes into an array and hands that off;
+	 * batches grow arithmetically, so a deque of n items is split into about
+	 * sqrt(n) pieces whose sizes are all known exactly
+	 */
+	private class DequeSpliterator implements Spliterator<Item> {
+		private static final int BATCH_UNIT = 1 << 10; // batch size increment
+		private static final int MAX_BATCH = 1 << 25; // largest batch
+		private Node current; // next node to traverse
+		private int remaining; // number of items left
+		private int batch; // size of the last batch split off
+
+		/**
+		 * construct a spliterator over the whole deque
+		 */
+		public DequeSpliterator() {
+			current = sentinel.next;
+			remaining = size;
+			batch = 0;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Spliterator#tryAdvance(java.util.function.Consumer)
+		 */
+		@Override
+		public boolean tryAdvance(Consumer<? super Item> action) {
+			if (remaining == 0)
+				return false;
+			Item item = current.item;
+			current = current.next;
+			remaining--;
+			action.accept(item);
+			return true;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Spliterator#forEachRemaining(java.util.function.Consumer)
+		 */
+		@Override
+		public void forEachRemaining(Consumer<? super Item> action) {
+			Node node = current;
+			int n = remaining;
+			current = sentinel;
+			remaining = 0;
+			for (int i = 0; i < n; i++) {
+				action.accept(node.item);
+				node = node.next;
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Spliterator#trySplit()
+		 */
+		@Override
+		public Spliterator<Item> trySplit() {
+			if (remaining <= 1)
+				return null;
+			batch = Math.min(batch + BATCH_UNIT, MAX_BATCH);
+			int n = Math.min(batch, remaining);
+			if (n == remaining)
+				n = remaining / 2; // never hand off everything
+			Object[] prefix = new Object[n];
+			for (int i = 0; i < n; i++) {
+				prefix[i] = current.item;
+				current = current.next;
+			}
+			remaining -= n;
+			return Spliterators.spliterator(prefix, 0, n, characteristics());
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Spliterator#estimateSize()
+		 */
+		@Override
+		public long estimateSize() {
+			return remaining;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Spliterator#characteristics()
+		 */
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+		}
+
+	}
+
 	// helper method used for testing
 	private void showList() {
 		Node current = sentinel.next;
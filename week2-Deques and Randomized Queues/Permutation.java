@@ -1,6 +1,14 @@
 package assign2;
 
-import edu.princeton.cs.algs4.StdIn;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import edu.princeton.cs.algs4.StdOut;
 
 /**
@@ -10,29 +18,112 @@ import edu.princeton.cs.algs4.StdOut;
  *         04/01/2017
  * 
  *         A client that takes a command-line integer k; reads in a sequence of
- *         strings from standard input using StdIn.readString(); and prints
- *         exactly k of them, uniformly at random. Print each item from the
- *         sequence at most once.
+ *         strings from standard input, or from the file named by an optional
+ *         second argument; and prints exactly k of them, uniformly at random.
+ *         Print each item from the sequence at most once.
+ * 
+ *         The input is streamed through a reservoir of size k, so memory stays
+ *         proportional to k however long the input is. Tokens are split at the
+ *         byte level by ByteTokenizer (a file is memory-mapped), and only the
+ *         tokens that enter the reservoir are turned into Strings.
+ * 
+ *         When a file and a third argument t > 1 are given, the file is cut
+ *         into byte ranges that are sampled by t threads, each range into its
+ *         own WeightedReservoir; merging them keeps the k smallest keys, which
+ *         is exactly a uniform k-sample of the whole file.
+ * 
+ *         As with the original client, asking for more strings than the input
+ *         holds is an error: a NoSuchElementException is thrown and nothing is
+ *         printed.
  *
  */
 public class Permutation {
 
-	public static void main(String[] args) {
+	// bytes below which a range is not worth a task of its own
+	private static final long MIN_RANGE = 1 << 20;
+
+	public static void main(String[] args) throws IOException, InterruptedException {
 		int sizeOfOutput = Integer.parseInt(args[0]);
-		RandomizedQueue<String> randomQueue = new RandomizedQueue<String>();
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : 1;
 
-		String input;
-		while (!StdIn.isEmpty()) {
-			input = StdIn.readString();
-			randomQueue.enqueue(input);
-		}
+		Iterable<String> sample;
+		if (threads > 1)
+			sample = parallelSample(Path.of(args[1]), sizeOfOutput, threads);
+		else
+			sample = sample(args.length > 1 ? new ByteTokenizer(Path.of(args[1])) : new ByteTokenizer(System.in),
+					sizeOfOutput);
 
-		String output;
-		for (int i = 0; i < sizeOfOutput; i++) {
-			output = randomQueue.dequeue();
+		for (String output : sample) {
 			StdOut.println(output);
 		}
+	}
+
+	/*
+	 * a helper method sampling k tokens in one pass on the calling thread
+	 */
+	static Iterable<String> sample(ByteTokenizer tokens, int k) throws IOException {
+		ReservoirSampler<String> reservoir = new ReservoirSampler<String>(k);
+		try {
+			while (tokens.advance()) {
+				if (reservoir.select())
+					reservoir.place(tokens.token());
+			}
+		} finally {
+			tokens.close();
+		}
+		checkSize(reservoir.size(), k);
+		return reservoir;
+	}
+
+	/*
+	 * a helper method sampling k tokens of a file with a pool of threads
+	 * 
+	 * there are a few ranges per thread so that a slow range does not hold up
+	 * the others; each range draws from its own split of one random source
+	 */
+	static Iterable<String> parallelSample(Path path, int k, int threads)
+			throws IOException, InterruptedException {
+		long size = ByteTokenizer.sizeOf(path);
+		int ranges = (int) Math.max(1, Math.min(4L * threads, size / MIN_RANGE));
+		SplittableRandom random = new SplittableRandom();
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ArrayList<Future<WeightedReservoir<String>>> futures = new ArrayList<Future<WeightedReservoir<String>>>();
+		for (int i = 0; i < ranges; i++) {
+			long from = size * i / ranges;
+			long to = size * (i + 1) / ranges;
+			SplittableRandom rangeRandom = random.split();
+			futures.add(pool.submit(() -> {
+				WeightedReservoir<String> reservoir = new WeightedReservoir<String>(k, rangeRandom);
+				try (ByteTokenizer tokens = new ByteTokenizer(path, from, to)) {
+					while (tokens.advance()) {
+						double key = reservoir.nextKey(1.0);
+						if (reservoir.accepts(key))
+							reservoir.add(tokens.token(), key);
+					}
+				}
+				return reservoir;
+			}));
+		}
+		pool.shutdown();
+
+		WeightedReservoir<String> merged = new WeightedReservoir<String>(k, random);
+		try {
+			for (Future<WeightedReservoir<String>> future : futures)
+				merged.merge(future.get());
+		} catch (ExecutionException e) {
+			pool.shutdownNow();
+			throw new IOException("sampling a range failed", e.getCause());
+		}
+		checkSize(merged.size(), k);
+		return merged;
+	}
 
+	// a helper method rejecting a sample smaller than asked for, as dequeuing
+	// from an empty RandomizedQueue did
+	private static void checkSize(int size, int k) {
+		if (size < k)
+			throw new NoSuchElementException("asked for " + k + " strings, the input has " + size);
 	}
 
 }
@@ -1,9 +1,16 @@
 package assign2;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import edu.princeton.cs.algs4.StdOut;
-import edu.princeton.cs.algs4.StdRandom;
 
 /**
  * 
@@ -13,19 +20,54 @@ import edu.princeton.cs.algs4.StdRandom;
  * 
  *         A representation of a queue that the item removed is chosen uniformly
  *         at random from items in the data structure.
+ * 
+ *         Every queue draws from its own random source instead of the shared
+ *         generator behind StdRandom, so queues used by different threads do
+ *         not contend, and a queue built from a seeded source replays the same
+ *         sequence of choices.
+ * 
+ *         Items are stored in blocks of 4096 slots found through a directory,
+ *         so a growing queue only ever allocates one new block instead of
+ *         copying everything: no operation moves more than one block of items
+ *         or the directory of references, which is 4096 times smaller than the
+ *         queue. Until the queue first fills one block, that block doubles and
+ *         halves as a plain resizing array would.
  *
  * @param <Item> a generic data type stored in RandomizedQueue
  */
 public class RandomizedQueue<Item> implements Iterable<Item> {
-	private Item[] queue;
+	private static final int BLOCK_SHIFT = 12;
+	private static final int BLOCK = 1 << BLOCK_SHIFT; // slots in a full block
+	private static final int BLOCK_MASK = BLOCK - 1;
+
+	private Item[][] blocks; // blocks[b] holds indices [b * BLOCK, (b + 1) * BLOCK)
+	private int capacity; // number of slots allocated
 	private int size;
+	private final RandomGenerator random; // source of all random choices
 
 	/**
-	 * construct an empty RandomizedQueue
+	 * construct an empty RandomizedQueue with a randomly seeded source
 	 */
 	public RandomizedQueue() {
-		queue = (Item[]) new Object[2];
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * construct an empty RandomizedQueue drawing from the given source, e.g.
+	 * a seeded SplittableRandom, a Xoroshiro128PlusPlus or
+	 * ThreadLocalRandom.current() for a queue confined to one thread
+	 * 
+	 * @param random the random source of this queue
+	 */
+	public RandomizedQueue(RandomGenerator random) {
+		if (random == null) {
+			throw new java.lang.NullPointerException("null random source");
+		}
+		blocks = (Item[][]) new Object[1][];
+		blocks[0] = (Item[]) new Object[2];
+		capacity = 2;
 		size = 0;
+		this.random = random;
 	}
 
 	/**
@@ -55,20 +97,83 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 		if (item == null) {
 			throw new java.lang.NullPointerException("adding a null item");
 		}
-		if (size == queue.length)
-			resize(2 * queue.length);
-		queue[size++] = item;
+		if (size == capacity)
+			grow();
+		set(size++, item);
+	}
+
+	// the item at index i
+	private Item get(int i) {
+		return blocks[i >>> BLOCK_SHIFT][i & BLOCK_MASK];
+	}
+
+	// a helper method storing an item at index i
+	private void set(int i, Item item) {
+		blocks[i >>> BLOCK_SHIFT][i & BLOCK_MASK] = item;
 	}
 
 	/*
-	 * a helper method to resize to size of array when necessary
+	 * a helper method adding room for more items: doubles the first block until
+	 * it is full size, then adds a block, doubling the directory if needed
+	 */
+	private void grow() {
+		if (capacity < BLOCK) {
+			resize(2 * capacity);
+			return;
+		}
+		int block = capacity >>> BLOCK_SHIFT;
+		if (block == blocks.length)
+			blocks = Arrays.copyOf(blocks, 2 * blocks.length);
+		blocks[block] = (Item[]) new Object[BLOCK];
+		capacity += BLOCK;
+	}
+
+	/*
+	 * a helper method giving back room after removals: a trailing block is
+	 * freed once two whole blocks are empty, so a queue going back and forth
+	 * across a block boundary does not allocate each time; the first block
+	 * shrinks when a quarter full, as a resizing array would
+	 */
+	private void shrink() {
+		while (capacity > BLOCK && size <= capacity - 2 * BLOCK) {
+			capacity -= BLOCK;
+			blocks[capacity >>> BLOCK_SHIFT] = null;
+		}
+		if (capacity <= BLOCK && size > 0 && size <= capacity / 4) {
+			int target = capacity / 2;
+			while (target > 2 && size <= target / 4)
+				target /= 2;
+			resize(target);
+		}
+	}
+
+	/*
+	 * a helper method to resize the first block while it is the only one
 	 */
 	private void resize(int capacity) {
 		Item[] temp = (Item[]) new Object[capacity];
 		for (int i = 0; i < size; i++) {
-			temp[i] = queue[i];
+			temp[i] = blocks[0][i];
 		}
-		queue = temp; // no holes in the new array
+		blocks[0] = temp; // no holes in the new array
+		this.capacity = capacity;
+	}
+
+	/*
+	 * a helper method returning an integer uniformly in [0, n)
+	 * 
+	 * multiply-shift maps a 32-bit random word onto [0, n) without a division;
+	 * the words falling in the short leftover range are rejected so that
+	 * every index is exactly equally likely (Lemire, 2019)
+	 */
+	private int uniform(int n) {
+		long product = (random.nextInt() & 0xFFFFFFFFL) * n;
+		if ((product & 0xFFFFFFFFL) < n) {
+			long threshold = (1L << 32) % n;
+			while ((product & 0xFFFFFFFFL) < threshold)
+				product = (random.nextInt() & 0xFFFFFFFFL) * n;
+		}
+		return (int) (product >>> 32);
 	}
 
 	/**
@@ -80,15 +185,14 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 		if (isEmpty()) {
 			throw new java.util.NoSuchElementException("empty deque");
 		}
-		int randomIndex = StdRandom.uniform(size);
-		Item chosenItem = queue[randomIndex];
-		Item lastItem = queue[size - 1];
+		int randomIndex = uniform(size);
+		Item chosenItem = get(randomIndex);
+		Item lastItem = get(size - 1);
 		// replace with the last item to maintain contiguous memory
-		queue[randomIndex] = lastItem;
-		queue[size - 1] = null; // avoid of loitering
+		set(randomIndex, lastItem);
+		set(size - 1, null); // avoid of loitering
 		size--;
-		if (size > 0 && size == queue.length / 4) // shrink when necessary
-			resize(queue.length / 2);
+		shrink(); // shrink when necessary
 		return chosenItem;
 	}
 
@@ -99,11 +203,71 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 		if (isEmpty()) {
 			throw new java.util.NoSuchElementException("empty deque");
 		}
-		int randomIndex = StdRandom.uniform(size);
-		Item chosenItem = queue[randomIndex];
+		int randomIndex = uniform(size);
+		Item chosenItem = get(randomIndex);
 		return chosenItem;
 	}
 
+	/**
+	 * remove k distinct random selected items and return them
+	 * 
+	 * one partial Fisher-Yates pass moves the chosen items to the tail of the
+	 * array, where they are cut off together; the array is shrunk at most
+	 * once, at the end
+	 * 
+	 * @param k the number of items to remove
+	 * @return k random selected items used to be in the queue
+	 */
+	public List<Item> dequeue(int k) {
+		if (k < 0 || k > size) {
+			throw new java.lang.IllegalArgumentException("cannot remove " + k + " of " + size + " items");
+		}
+		Item[] chosenItems = (Item[]) new Object[k];
+		for (int i = 0; i < k; i++) {
+			int last = size - 1 - i;
+			int randomIndex = uniform(last + 1);
+			chosenItems[i] = get(randomIndex);
+			set(randomIndex, get(last));
+			set(last, null); // avoid of loitering
+		}
+		size -= k;
+		shrink(); // shrink when necessary
+		return Arrays.asList(chosenItems);
+	}
+
+	/**
+	 * choose k distinct random selected items without removing them
+	 * 
+	 * the same partial Fisher-Yates pass as dequeue(k); the swaps are undone
+	 * afterwards so the queue is left as it was
+	 * 
+	 * @param k the number of items to choose
+	 * @return k random selected items
+	 */
+	public List<Item> sample(int k) {
+		if (k < 0 || k > size) {
+			throw new java.lang.IllegalArgumentException("cannot sample " + k + " of " + size + " items");
+		}
+		Item[] chosenItems = (Item[]) new Object[k];
+		int[] randomIndex = new int[k];
+		for (int i = 0; i < k; i++) {
+			int last = size - 1 - i;
+			randomIndex[i] = uniform(last + 1);
+			chosenItems[i] = get(randomIndex[i]);
+			swap(randomIndex[i], last);
+		}
+		for (int i = k - 1; i >= 0; i--)
+			swap(randomIndex[i], size - 1 - i);
+		return Arrays.asList(chosenItems);
+	}
+
+	// a helper method swapping two items of the array
+	private void swap(int i, int j) {
+		Item temp = get(i);
+		set(i, get(j));
+		set(j, temp);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -118,25 +282,99 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 	 * a helper method defining iterator of RandomizedQueue that traverses the
 	 * queue in a random order
 	 * 
-	 * shuffle a array containing indices, based on which go over items in the
-	 * array containing items
+	 * runs Fisher-Yates one step per next() over a virtual array of indices
+	 * 0..n-1: only the positions that have been swapped are stored, in a
+	 * sparse map, so construction is O(1) and memory grows with the number of
+	 * items consumed rather than with the size of the queue
+	 * 
+	 * the map is an open-addressing table of primitive ints, holding at most
+	 * one entry per item consumed; once it holds n/8 entries it would take as
+	 * much memory as the dense array of all n positions, so it is turned into
+	 * that array for the rest of the traversal
 	 */
 	private class RandomizedQueueIterator implements Iterator<Item> {
-		private int[] randomIndex; // contains the randomly arranged index
-		private int counter; // cursor in randomIndex
-		private Item current; // contains the returned item
+		private final int n; // number of items when the iterator was created
+		private int counter; // number of items returned so far
+		// position -> index, for the positions whose index has been swapped;
+		// a key is stored as position + 1, so 0 marks an empty slot
+		private int[] keys;
+		private int[] values;
+		private int entries;
+		private int[] dense; // index of every position, once the map is dropped
 
 		/**
 		 * constructs an iterator
 		 */
 		public RandomizedQueueIterator() {
-			randomIndex = new int[size];
-			for (int i = 0; i < size; i++) {
-				randomIndex[i] = i;
-			}
-			// each entry contains a randomly arranged index
-			StdRandom.shuffle(randomIndex);
+			n = size;
 			counter = 0;
+			keys = new int[16];
+			values = new int[16];
+			entries = 0;
+		}
+
+		// the index currently held at a position of the virtual array
+		private int indexAt(int position) {
+			if (dense != null)
+				return dense[position];
+			int mask = keys.length - 1;
+			for (int slot = slotOf(position, mask); keys[slot] != 0; slot = (slot + 1) & mask)
+				if (keys[slot] == position + 1)
+					return values[slot];
+			return position;
+		}
+
+		// a helper method storing the index held at a position
+		private void setIndex(int position, int index) {
+			if (dense != null) {
+				dense[position] = index;
+				return;
+			}
+			int mask = keys.length - 1;
+			int slot = slotOf(position, mask);
+			while (keys[slot] != 0 && keys[slot] != position + 1)
+				slot = (slot + 1) & mask;
+			values[slot] = index;
+			if (keys[slot] != 0)
+				return;
+			keys[slot] = position + 1;
+			if (++entries > n >>> 3)
+				densify();
+			else if (2 * entries > keys.length)
+				rehash(2 * keys.length);
+		}
+
+		// a helper method spreading the bits of a position over the table
+		private int slotOf(int position, int mask) {
+			int h = position * 0x9E3779B9;
+			return (h ^ h >>> 16) & mask;
+		}
+
+		// a helper method moving the entries into a table of the given size
+		private void rehash(int length) {
+			int[] oldKeys = keys, oldValues = values;
+			keys = new int[length];
+			values = new int[length];
+			int mask = length - 1;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] == 0)
+					continue;
+				int slot = slotOf(oldKeys[i] - 1, mask);
+				while (keys[slot] != 0)
+					slot = (slot + 1) & mask;
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+
+		// a helper method replacing the map by the dense array of positions
+		private void densify() {
+			int[] all = new int[n];
+			for (int position = counter; position < n; position++)
+				all[position] = indexAt(position);
+			dense = all;
+			keys = null;
+			values = null;
 		}
 
 		/*
@@ -146,7 +384,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 		 */
 		@Override
 		public boolean hasNext() {
-			return counter < size;
+			return counter < n;
 		}
 
 		/*
@@ -158,8 +396,13 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 		public Item next() {
 			if (!hasNext())
 				throw new NoSuchElementException();
-			current = queue[randomIndex[counter++]];
-			return current;
+			// swap position counter with a random position in [counter, n)
+			int chosen = counter + uniform(n - counter);
+			int index = indexAt(chosen);
+			if (chosen != counter) // position counter is never looked at again
+				setIndex(chosen, indexAt(counter));
+			counter++;
+			return get(index);
 		}
 
 		/*
@@ -174,9 +417,119 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * unlike the iterator, the spliterator visits items in the order of the
+	 * backing array rather than in a random order: it is meant for bulk
+	 * processing, where splitting the dense array into ranges lets every
+	 * thread work on its own part
+	 * 
+	 * @see java.lang.Iterable#spliterator()
+	 */
+	@Override
+	public Spliterator<Item> spliterator() {
+		return new RandomizedQueueSpliterator(0, size);
+	}
+
+	/**
+	 * @return a sequential stream over the items, in no particular order
+	 */
+	public Stream<Item> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	/**
+	 * @return a parallel stream over the items, in no particular order
+	 */
+	public Stream<Item> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+
+	/*
+	 * an inner class that defines the spliterator of RandomizedQueue over a
+	 * range [index, end) of the backing array, split in halves
+	 */
+	private class RandomizedQueueSpliterator implements Spliterator<Item> {
+		private int index; // next index to traverse
+		private final int end; // one past the last index
+
+		/**
+		 * construct a spliterator over a range of the backing array
+		 * 
+		 * @param index first index of the range
+		 * @param end one past the last index of the range
+		 */
+		public RandomizedQueueSpliterator(int index, int end) {
+			this.index = index;
+			this.end = end;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Spliterator#tryAdvance(java.util.function.Consumer)
+		 */
+		@Override
+		public boolean tryAdvance(Consumer<? super Item> action) {
+			if (index >= end)
+				return false;
+			action.accept(get(index++));
+			return true;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Spliterator#forEachRemaining(java.util.function.Consumer)
+		 */
+		@Override
+		public void forEachRemaining(Consumer<? super Item> action) {
+			for (int i = index; i < end; i++)
+				action.accept(get(i));
+			index = end;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Spliterator#trySplit()
+		 */
+		@Override
+		public Spliterator<Item> trySplit() {
+			int mid = (index + end) >>> 1;
+			if (mid <= index)
+				return null;
+			Spliterator<Item> prefix = new RandomizedQueueSpliterator(index, mid);
+			index = mid;
+			return prefix;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Spliterator#estimateSize()
+		 */
+		@Override
+		public long estimateSize() {
+			return end - index;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Spliterator#characteristics()
+		 */
+		@Override
+		public int characteristics() {
+			return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+		}
+
+	}
+
 	// used for unit testing in main
 	private int getCapacity() {
-		return queue.length;
+		return capacity;
 	}
 
 	// unit testing (optional)
@@ -0,0 +1,191 @@
+package assign2;
+
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * 
+ * @author Xu Wang
+ * 
+ *         A uniform random sample of at most k items drawn from a stream of
+ *         unknown length in a single pass, holding only k items at any time.
+ * 
+ *         Mechanism (Li's Algorithm L):
+ * 
+ *         1. The first k items fill the reservoir.
+ * 
+ *         2. Instead of flipping a coin for every later item, the number of
+ *         items to skip before the next replacement is drawn directly from its
+ *         geometric-like distribution, so only O(k(1 + log(n/k))) random
+ *         numbers are needed for a stream of n items.
+ * 
+ *         3. The replaced slot is chosen uniformly among the k slots.
+ * 
+ *         Callers that can advance over an item cheaply without building it
+ *         (e.g. a tokenizer) should use select() and place() so that only the
+ *         items that end up in the reservoir are ever materialised.
+ *
+ * @param <Item> a generic data type stored in the reservoir
+ */
+public class ReservoirSampler<Item> implements Iterable<Item> {
+	private final Item[] reservoir;
+	private final RandomGenerator random;
+	private int size; // number of slots filled, at most k
+	private long count; // number of stream items seen so far
+	private long next; // 1-based position in the stream of the next replacement
+	private double w; // running maximum key of Algorithm L
+	private int slot; // slot to fill by the next place(), -1 if none
+
+	/**
+	 * construct an empty reservoir of capacity k with a randomly seeded source
+	 * 
+	 * @param k the number of items to sample
+	 */
+	public ReservoirSampler(int k) {
+		this(k, new SplittableRandom());
+	}
+
+	/**
+	 * construct an empty reservoir of capacity k drawing from the given source
+	 * 
+	 * @param k the number of items to sample
+	 * @param random the random source of this sampler
+	 */
+	public ReservoirSampler(int k, RandomGenerator random) {
+		if (k < 0) {
+			throw new java.lang.IllegalArgumentException("negative sample size");
+		}
+		if (random == null) {
+			throw new java.lang.NullPointerException("null random source");
+		}
+		reservoir = (Item[]) new Object[k];
+		this.random = random;
+		size = 0;
+		count = 0;
+		slot = -1;
+		if (k > 0) {
+			w = Math.exp(Math.log(openUnit()) / k);
+			next = k;
+			skip();
+		}
+	}
+
+	/**
+	 * tell the number of items held, min(k, number of items seen)
+	 * 
+	 * @return the number of items in the reservoir
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * tell the number of stream items seen so far
+	 * 
+	 * @return the number of calls to select() or offer()
+	 */
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * account for the next item of the stream and tell whether it should be
+	 * stored; when true, the caller must follow with place(item)
+	 * 
+	 * @return true if the next item is sampled, else false
+	 */
+	public boolean select() {
+		count++;
+		if (size < reservoir.length) {
+			slot = size++;
+			return true;
+		}
+		if (count != next)
+			return false;
+		slot = uniform(reservoir.length);
+		w *= Math.exp(Math.log(openUnit()) / reservoir.length);
+		skip();
+		return true;
+	}
+
+	/**
+	 * store the item that select() has just accepted
+	 * 
+	 * @param item item to be stored
+	 */
+	public void place(Item item) {
+		if (item == null) {
+			throw new java.lang.NullPointerException("adding a null item");
+		}
+		if (slot < 0) {
+			throw new java.lang.IllegalStateException("place() without an accepting select()");
+		}
+		reservoir[slot] = item;
+		slot = -1;
+	}
+
+	/**
+	 * feed the next item of the stream to the sampler
+	 * 
+	 * @param item the next item of the stream
+	 */
+	public void offer(Item item) {
+		if (select())
+			place(item);
+	}
+
+	/*
+	 * a helper method advancing next past the items that will not be sampled
+	 */
+	private void skip() {
+		double gap = Math.floor(Math.log(openUnit()) / Math.log1p(-w));
+		long step = gap >= Long.MAX_VALUE - 1 ? Long.MAX_VALUE : (long) gap + 1;
+		next = step > Long.MAX_VALUE - next ? Long.MAX_VALUE : next + step;
+	}
+
+	// a random number in (0, 1], so that its logarithm is finite
+	private double openUnit() {
+		return 1.0 - random.nextDouble();
+	}
+
+	// a random integer in [0, n)
+	private int uniform(int n) {
+		return random.nextInt(n);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * the sampled items in a uniformly random order
+	 * 
+	 * @see java.lang.Iterable#iterator()
+	 */
+	@Override
+	public Iterator<Item> iterator() {
+		RandomizedQueue<Item> queue = new RandomizedQueue<Item>(random);
+		for (int i = 0; i < size; i++)
+			queue.enqueue(reservoir[i]);
+		return queue.iterator();
+	}
+
+	// unit testing (optional)
+	public static void main(String[] args) {
+		int n = 10;
+		int k = 3;
+		int trials = 100000;
+		int[] hits = new int[n];
+		for (int t = 0; t < trials; t++) {
+			ReservoirSampler<Integer> sampler = new ReservoirSampler<Integer>(k);
+			for (int i = 0; i < n; i++)
+				sampler.offer(i);
+			for (int i : sampler)
+				hits[i]++;
+		}
+		StdOut.println("expected hits per item = " + trials * k / n);
+		for (int i = 0; i < n; i++)
+			StdOut.println(i + ": " + hits[i]);
+	}
+
+}
@@ -0,0 +1,380 @@
+package assign2;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * 
+ * @author Xu Wang
+ * 
+ *         A double-ended queue that can hand out an immutable snapshot of its
+ *         contents in O(1), which stays valid while the deque keeps changing.
+ * 
+ *         Mechanism:
+ * 
+ *         1. The deque is two stacks: the front stack holds the first part with
+ *         the first item on top, the rear stack holds the rest with the last
+ *         item on top. When one runs empty, half of the other is moved over in
+ *         O(n), which is O(1) amortised.
+ * 
+ *         2. A stack is a chain of chunks of 64 slots; every chunk but the top
+ *         one is full, and a chunk only points to the chunk below it, so chunks
+ *         are shared freely between the deque and its snapshots.
+ * 
+ *         3. A snapshot is just the top chunk and item count of each stack. The
+ *         deque never rewrites a slot a snapshot can see: a push into a slot
+ *         that was filled before the last snapshot copies the top chunk first,
+ *         and a pop only clears its slot when no snapshot has seen the chunk.
+ * 
+ *         The deque itself is not thread-safe. snapshot() is O(1), so calling
+ *         it under the lock that guards the writers and iterating the result
+ *         outside that lock is cheap for the writers.
+ *
+ * @param <Item> a generic data type stored in deque
+ */
+public class SnapshotDeque<Item> implements Iterable<Item> {
+	private static final int CHUNK = 64; // slots in a chunk
+
+	// a chunk of a stack
+	private static final class Chunk {
+		private final Object[] items;
+		private final Chunk below; // full chunk under this one, or null
+		private final long epoch; // snapshot epoch in which the chunk was made
+		private int filled; // number of slots ever written
+
+		public Chunk(Object[] items, Chunk below, long epoch, int filled) {
+			this.items = items;
+			this.below = below;
+			this.epoch = epoch;
+			this.filled = filled;
+		}
+	}
+
+	// the mutable top of a stack
+	private final class Stack {
+		private Chunk top; // top chunk, or null if empty
+		private int count; // items in the top chunk
+		private int size; // items in the stack
+
+		private void push(Object item) {
+			if (top == null || count == CHUNK) {
+				top = new Chunk(new Object[CHUNK], top, epoch, 0);
+				count = 0;
+			} else if (top.epoch != epoch && count < top.filled) {
+				// a snapshot may still see the slot, so copy the chunk first
+				Object[] copy = new Object[CHUNK];
+				System.arraycopy(top.items, 0, copy, 0, count);
+				top = new Chunk(copy, top.below, epoch, count);
+			}
+			top.items[count++] = item;
+			top.filled = Math.max(top.filled, count);
+			size++;
+		}
+
+		private Object pop() {
+			Object item = top.items[--count];
+			if (top.epoch == epoch)
+				top.items[count] = null; // avoid of loitering
+			if (count == 0) {
+				top = top.below;
+				count = top == null ? 0 : CHUNK;
+			}
+			size--;
+			return item;
+		}
+	}
+
+	private Stack front; // first item on top
+	private Stack rear; // last item on top
+	private long epoch; // number of snapshots taken
+
+	/**
+	 * construct an empty deque
+	 */
+	public SnapshotDeque() {
+		front = new Stack();
+		rear = new Stack();
+		epoch = 0;
+	}
+
+	/**
+	 * tell if deque is empty or not
+	 * 
+	 * @return true if deque is empty, else false
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * tell the size of deque
+	 * 
+	 * @return number of items in deque
+	 */
+	public int size() {
+		return front.size + rear.size;
+	}
+
+	/**
+	 * add an item to the front of deque
+	 * 
+	 * @param item item to be inserted
+	 */
+	public void addFirst(Item item) {
+		if (item == null) {
+			throw new java.lang.NullPointerException("adding a null item");
+		}
+		front.push(item);
+	}
+
+	/**
+	 * add an item to the end of deque
+	 * 
+	 * @param item item to be inserted
+	 */
+	public void addLast(Item item) {
+		if (item == null) {
+			throw new java.lang.NullPointerException("adding a null item");
+		}
+		rear.push(item);
+	}
+
+	/**
+	 * remove and return the item from the front
+	 * 
+	 * @return the item used to be the front of deque
+	 */
+	public Item removeFirst() {
+		if (isEmpty()) {
+			throw new java.util.NoSuchElementException("removing from an empty deque");
+		}
+		if (front.size == 0)
+			rebalance();
+		return (Item) front.pop();
+	}
+
+	/**
+	 * remove and return the item from the end
+	 * 
+	 * @return the item used to be the end of deque
+	 */
+	public Item removeLast() {
+		if (isEmpty()) {
+			throw new java.util.NoSuchElementException("removing from an empty deque");
+		}
+		if (rear.size == 0)
+			rebalance();
+		return (Item) rear.pop();
+	}
+
+	/*
+	 * a helper method splitting the items evenly between two new stacks when
+	 * one of them has run empty; the old chunks are left untouched for the
+	 * snapshots that share them
+	 */
+	private void rebalance() {
+		Object[] items = toArray(front.top, front.count, front.size, rear.top, rear.count, rear.size);
+		int half = (items.length + 1) / 2; // the empty side gets the larger half
+		if (rear.size == 0)
+			half = items.length / 2;
+		front = new Stack();
+		rear = new Stack();
+		for (int i = half - 1; i >= 0; i--)
+			front.push(items[i]);
+		for (int i = half; i < items.length; i++)
+			rear.push(items[i]);
+	}
+
+	/**
+	 * take an immutable view of the current contents in O(1)
+	 * 
+	 * @return a snapshot of deque
+	 */
+	public Snapshot<Item> snapshot() {
+		epoch++; // chunks made so far are now shared
+		return new Snapshot<Item>(front.top, front.count, front.size, rear.top, rear.count, rear.size);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * iterates over a snapshot, so changing deque during the iteration is safe
+	 * and does not affect it
+	 * 
+	 * @see java.lang.Iterable#iterator()
+	 */
+	@Override
+	public Iterator<Item> iterator() {
+		return snapshot().iterator();
+	}
+
+	/*
+	 * a helper method listing the items of two stacks front to end
+	 */
+	private static Object[] toArray(Chunk frontTop, int frontCount, int frontSize, Chunk rearTop, int rearCount,
+			int rearSize) {
+		Object[] items = new Object[frontSize + rearSize];
+		int i = 0;
+		int count = frontCount;
+		for (Chunk chunk = frontTop; chunk != null; chunk = chunk.below, count = CHUNK) {
+			for (int j = count - 1; j >= 0; j--)
+				items[i++] = chunk.items[j];
+		}
+		i = items.length;
+		count = rearCount;
+		for (Chunk chunk = rearTop; chunk != null; chunk = chunk.below, count = CHUNK) {
+			for (int j = count - 1; j >= 0; j--)
+				items[--i] = chunk.items[j];
+		}
+		return items;
+	}
+
+	/**
+	 * an immutable view of a SnapshotDeque at the time it was taken
+	 *
+	 * @param <Item> a generic data type stored in deque
+	 */
+	public static final class Snapshot<Item> implements Iterable<Item> {
+		private final Chunk frontTop;
+		private final int frontCount;
+		private final int frontSize;
+		private final Chunk rearTop;
+		private final int rearCount;
+		private final int rearSize;
+
+		private Snapshot(Chunk frontTop, int frontCount, int frontSize, Chunk rearTop, int rearCount, int rearSize) {
+			this.frontTop = frontTop;
+			this.frontCount = frontCount;
+			this.frontSize = frontSize;
+			this.rearTop = rearTop;
+			this.rearCount = rearCount;
+			this.rearSize = rearSize;
+		}
+
+		/**
+		 * tell the size of the snapshot
+		 * 
+		 * @return number of items in deque when the snapshot was taken
+		 */
+		public int size() {
+			return frontSize + rearSize;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.lang.Iterable#iterator()
+		 */
+		@Override
+		public Iterator<Item> iterator() {
+			return new SnapshotIterator();
+		}
+
+		/*
+		 * an inner class that defines the iterator of a snapshot: down the
+		 * front stack, then up the rear stack, whose chunks are first listed
+		 * bottom to top (one reference per 64 items)
+		 */
+		private class SnapshotIterator implements Iterator<Item> {
+			private Chunk chunk; // current chunk of the front stack
+			private int index; // next slot in chunk, counting down
+			private final Chunk[] rearChunks; // rear stack, bottom chunk first
+			private int rearChunk; // current index in rearChunks
+			private int rearIndex; // next slot in the current rear chunk
+			private int remaining; // items left
+
+			/**
+			 * construct an iterator of a snapshot
+			 */
+			public SnapshotIterator() {
+				chunk = frontTop;
+				index = frontCount - 1;
+				int chunks = rearSize == 0 ? 0 : (rearSize - rearCount) / CHUNK + 1;
+				rearChunks = new Chunk[chunks];
+				Chunk c = rearTop;
+				for (int i = chunks - 1; i >= 0; i--, c = c.below)
+					rearChunks[i] = c;
+				rearChunk = 0;
+				rearIndex = 0;
+				remaining = frontSize + rearSize;
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * 
+			 * @see java.util.Iterator#hasNext()
+			 */
+			@Override
+			public boolean hasNext() {
+				return remaining > 0;
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * 
+			 * @see java.util.Iterator#next()
+			 */
+			@Override
+			public Item next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				remaining--;
+				if (chunk != null) {
+					Item item = (Item) chunk.items[index--];
+					if (index < 0) {
+						chunk = chunk.below;
+						index = CHUNK - 1;
+					}
+					return item;
+				}
+				int end = rearChunk == rearChunks.length - 1 ? rearCount : CHUNK;
+				Item item = (Item) rearChunks[rearChunk].items[rearIndex++];
+				if (rearIndex == end) {
+					rearChunk++;
+					rearIndex = 0;
+				}
+				return item;
+			}
+
+			/*
+			 * (non-Javadoc)
+			 * 
+			 * @see java.util.Iterator#remove()
+			 */
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+
+		}
+	}
+
+	// unit testing (optional)
+	public static void main(String[] args) {
+		SnapshotDeque<Integer> deque = new SnapshotDeque<Integer>();
+		for (int i = 0; i < 200; i++)
+			deque.addLast(i);
+
+		Snapshot<Integer> snapshot = deque.snapshot();
+		StdOut.println("snapshot size = " + snapshot.size());
+
+		StdOut.println("Changing deque after the snapshot...");
+		for (int i = 0; i < 150; i++)
+			deque.removeLast();
+		for (int i = 0; i < 100; i++) {
+			deque.addLast(-i);
+			deque.addFirst(-i);
+		}
+		for (int i = 0; i < 120; i++)
+			deque.removeFirst();
+		StdOut.println("deque size = " + deque.size());
+
+		boolean intact = true;
+		int expected = 0;
+		for (int i : snapshot)
+			intact &= i == expected++;
+		StdOut.println("snapshot intact? " + (intact && expected == 200));
+	}
+
+}
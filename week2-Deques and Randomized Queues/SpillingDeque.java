@@ -0,0 +1,494 @@
+package assign2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * 
+ * @author Xu Wang
+ * 
+ *         A double-ended queue whose backlog can grow beyond the heap: only the
+ *         segments near its two ends are kept in memory, the ones in the middle
+ *         are written to memory-mapped segment files.
+ * 
+ *         Mechanism:
+ * 
+ *         1. Items are stored in segments of a fixed capacity, kept in order in
+ *         a circular array of segment descriptors. An end segment fills towards
+ *         the outside and a new segment is opened when it is full.
+ * 
+ *         2. A segment within distance 1 of either end is always in memory. A
+ *         segment at distance 3 or more from both ends is spilled to its own
+ *         file through the item serializer and dropped from the heap.
+ * 
+ *         3. When an end segment is used up and removed, the segment that moves
+ *         to distance 1 is paged back in and its file deleted.
+ * 
+ *         A segment is spilled at distance 3 and paged in at distance 1, so the
+ *         end has to move by at least a full segment between the two. Each
+ *         spill or load of S items is therefore paid for by at least S end
+ *         operations, and all four end operations are O(1) amortised.
+ * 
+ *         Whenever a segment is opened or removed at either end, the segments
+ *         at distance 3 from the front and from the back are both checked; a
+ *         segment can only become far from both ends by passing one of those
+ *         two places, so every segment 3 or more from both ends is spilled,
+ *         and at most six segments are in memory at once, whatever the
+ *         backlog.
+ * 
+ *         Spilled files live in a directory of their own and are deleted when
+ *         the segment is loaded again or when the deque is closed.
+ *
+ * @param <Item> a generic data type stored in deque
+ */
+public class SpillingDeque<Item> implements Iterable<Item>, Closeable {
+	private static final int SPILL_DISTANCE = 3; // spilled at this distance from both ends
+	private static final int DEFAULT_SEGMENT_SIZE = 1 << 16;
+
+	/**
+	 * converts items to and from bytes for spilled segments
+	 *
+	 * @param <Item> the type of items converted
+	 */
+	public interface Serializer<Item> {
+		/**
+		 * @param item an item
+		 * @return the number of bytes write() uses for the item
+		 */
+		int sizeOf(Item item);
+
+		/**
+		 * write an item at the position of a buffer, advancing it
+		 * 
+		 * @param item an item
+		 * @param out the buffer to write to
+		 */
+		void write(Item item, ByteBuffer out);
+
+		/**
+		 * read an item at the position of a buffer, advancing it
+		 * 
+		 * @param in the buffer to read from
+		 * @return the item read
+		 */
+		Item read(ByteBuffer in);
+	}
+
+	/**
+	 * a serializer for Strings, as a length followed by UTF-8 bytes
+	 */
+	public static final Serializer<String> STRINGS = new Serializer<String>() {
+		@Override
+		public int sizeOf(String item) {
+			return 4 + item.getBytes(StandardCharsets.UTF_8).length;
+		}
+
+		@Override
+		public void write(String item, ByteBuffer out) {
+			byte[] bytes = item.getBytes(StandardCharsets.UTF_8);
+			out.putInt(bytes.length);
+			out.put(bytes);
+		}
+
+		@Override
+		public String read(ByteBuffer in) {
+			byte[] bytes = new byte[in.getInt()];
+			in.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+
+	// a run of consecutive items, either in memory or in a file
+	private class Segment {
+		private Item[] items; // null while spilled
+		private int head; // index of the first item in items
+		private int count; // number of items in the segment
+		private Path file; // non-null while spilled
+	}
+
+	private final Serializer<Item> serializer;
+	private final int segmentSize;
+	private final Path directory;
+	private Segment[] segments; // circular array of segments, front to back
+	private int first; // index in segments of the front segment
+	private int segmentCount;
+	private int size; // number of items in deque
+	private long nextFile; // used to name spill files
+
+	/**
+	 * construct an empty deque spilling to a new temporary directory
+	 * 
+	 * @param serializer converts items to and from bytes
+	 * @throws IOException if the directory cannot be created
+	 */
+	public SpillingDeque(Serializer<Item> serializer) throws IOException {
+		this(serializer, DEFAULT_SEGMENT_SIZE, Files.createTempDirectory("deque"));
+	}
+
+	/**
+	 * construct an empty deque
+	 * 
+	 * @param serializer converts items to and from bytes
+	 * @param segmentSize the number of items in a segment
+	 * @param directory an existing directory for the spill files
+	 */
+	public SpillingDeque(Serializer<Item> serializer, int segmentSize, Path directory) {
+		if (serializer == null || directory == null) {
+			throw new java.lang.NullPointerException("null serializer or directory");
+		}
+		if (segmentSize < 1) {
+			throw new java.lang.IllegalArgumentException("segment size must be positive");
+		}
+		this.serializer = serializer;
+		this.segmentSize = segmentSize;
+		this.directory = directory;
+		segments = (Segment[]) java.lang.reflect.Array.newInstance(Segment.class, 8);
+		first = 0;
+		segmentCount = 0;
+		size = 0;
+	}
+
+	/**
+	 * tell if deque is empty or not
+	 * 
+	 * @return true if deque is empty, else false
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * tell the size of deque
+	 * 
+	 * @return number of items in deque
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * add an item to the front of deque
+	 * 
+	 * @param item item to be inserted
+	 */
+	public void addFirst(Item item) {
+		if (item == null) {
+			throw new java.lang.NullPointerException("adding a null item");
+		}
+		if (segmentCount == 0 || fromFront(0).head == 0) {
+			Segment segment = newSegment(segmentSize);
+			if (segmentCount == segments.length)
+				resize(2 * segments.length);
+			first = (first - 1) & (segments.length - 1);
+			segments[first] = segment;
+			segmentCount++;
+			spillFar();
+		}
+		Segment front = fromFront(0);
+		front.items[--front.head] = item;
+		front.count++;
+		size++;
+	}
+
+	/**
+	 * add an item to the end of deque
+	 * 
+	 * @param item item to be inserted
+	 */
+	public void addLast(Item item) {
+		if (item == null) {
+			throw new java.lang.NullPointerException("adding a null item");
+		}
+		if (segmentCount == 0 || fromBack(0).head + fromBack(0).count == segmentSize) {
+			Segment segment = newSegment(0);
+			if (segmentCount == segments.length)
+				resize(2 * segments.length);
+			segments[(first + segmentCount) & (segments.length - 1)] = segment;
+			segmentCount++;
+			spillFar();
+		}
+		Segment back = fromBack(0);
+		back.items[back.head + back.count++] = item;
+		size++;
+	}
+
+	/**
+	 * remove and return the item from the front
+	 * 
+	 * @return the item used to be the front of deque
+	 */
+	public Item removeFirst() {
+		if (isEmpty()) {
+			throw new java.util.NoSuchElementException("removing from an empty deque");
+		}
+		Segment front = fromFront(0);
+		Item item = front.items[front.head];
+		front.items[front.head++] = null; // avoid of loitering
+		front.count--;
+		size--;
+		if (front.count == 0) {
+			segments[first] = null;
+			first = (first + 1) & (segments.length - 1);
+			segmentCount--;
+			if (segmentCount > 1)
+				load(fromFront(1)); // now at distance 1 from the front
+			spillFar();
+		}
+		return item;
+	}
+
+	/**
+	 * remove and return the item from the end
+	 * 
+	 * @return the item used to be the end of deque
+	 */
+	public Item removeLast() {
+		if (isEmpty()) {
+			throw new java.util.NoSuchElementException("removing from an empty deque");
+		}
+		Segment back = fromBack(0);
+		int last = back.head + back.count - 1;
+		Item item = back.items[last];
+		back.items[last] = null;
+		back.count--;
+		size--;
+		if (back.count == 0) {
+			segments[(first + segmentCount - 1) & (segments.length - 1)] = null;
+			segmentCount--;
+			if (segmentCount > 1)
+				load(fromBack(1));
+			spillFar();
+		}
+		return item;
+	}
+
+	// the segment at a distance from the front
+	private Segment fromFront(int distance) {
+		return segments[(first + distance) & (segments.length - 1)];
+	}
+
+	// the segment at a distance from the back
+	private Segment fromBack(int distance) {
+		return fromFront(segmentCount - 1 - distance);
+	}
+
+	// a helper method creating an empty segment in memory
+	private Segment newSegment(int head) {
+		Segment segment = new Segment();
+		segment.items = (Item[]) new Object[segmentSize];
+		segment.head = head;
+		return segment;
+	}
+
+	// a helper method resizing the circular array of segments
+	private void resize(int capacity) {
+		Segment[] temp = (Segment[]) java.lang.reflect.Array.newInstance(Segment.class, capacity);
+		for (int i = 0; i < segmentCount; i++) {
+			temp[i] = fromFront(i);
+		}
+		segments = temp;
+		first = 0;
+	}
+
+	/*
+	 * a helper method run whenever the segments change at either end: a
+	 * segment only gets far from both ends by moving to distance
+	 * SPILL_DISTANCE from one of them, so checking the segments at that
+	 * distance from the front and from the back spills every segment far from
+	 * both ends, without walking the whole backlog
+	 */
+	private void spillFar() {
+		spillIfFar(SPILL_DISTANCE);
+		spillIfFar(segmentCount - 1 - SPILL_DISTANCE);
+	}
+
+	/*
+	 * a helper method spilling the segment at a distance from the front if it
+	 * is far enough from both ends
+	 */
+	private void spillIfFar(int distance) {
+		if (distance < SPILL_DISTANCE || segmentCount - 1 - distance < SPILL_DISTANCE)
+			return;
+		Segment segment = fromFront(distance);
+		if (segment.items == null)
+			return;
+		try {
+			long bytes = 4;
+			for (int i = 0; i < segment.count; i++)
+				bytes += serializer.sizeOf(segment.items[segment.head + i]);
+			if (bytes > Integer.MAX_VALUE) {
+				throw new java.lang.IllegalStateException("segment of " + bytes + " bytes cannot be mapped");
+			}
+			Path file = directory.resolve("segment-" + nextFile++);
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+					StandardOpenOption.WRITE)) {
+				MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+				out.putInt(segment.count);
+				for (int i = 0; i < segment.count; i++)
+					serializer.write(segment.items[segment.head + i], out);
+			}
+			segment.file = file;
+			segment.items = null;
+			segment.head = 0;
+		} catch (IOException e) {
+			throw new UncheckedIOException("spilling a segment failed", e);
+		}
+	}
+
+	// a helper method paging a spilled segment back in
+	private void load(Segment segment) {
+		if (segment.items != null)
+			return;
+		segment.items = read(segment.file);
+		segment.head = 0;
+		try {
+			Files.delete(segment.file);
+		} catch (IOException e) {
+			throw new UncheckedIOException("deleting a segment file failed", e);
+		}
+		segment.file = null;
+	}
+
+	// a helper method reading the items of a spill file
+	private Item[] read(Path file) {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			Item[] items = (Item[]) new Object[segmentSize];
+			int count = in.getInt();
+			for (int i = 0; i < count; i++)
+				items[i] = serializer.read(in);
+			return items;
+		} catch (IOException e) {
+			throw new UncheckedIOException("loading a segment failed", e);
+		}
+	}
+
+	/**
+	 * delete the spill files and the directory; the deque is empty afterwards
+	 */
+	@Override
+	public void close() throws IOException {
+		for (int i = 0; i < segmentCount; i++) {
+			Segment segment = fromFront(i);
+			if (segment.file != null)
+				Files.deleteIfExists(segment.file);
+			segments[(first + i) & (segments.length - 1)] = null;
+		}
+		segmentCount = 0;
+		size = 0;
+		Files.deleteIfExists(directory);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * spilled segments are read from their files as the iterator reaches them,
+	 * one at a time, without paging them back into deque
+	 * 
+	 * @see java.lang.Iterable#iterator()
+	 */
+	@Override
+	public Iterator<Item> iterator() {
+		return new SpillingDequeIterator();
+	}
+
+	/*
+	 * an inner class that defines the iterator of deque
+	 */
+	private class SpillingDequeIterator implements Iterator<Item> {
+		private int segment; // distance from the front of the current segment
+		private Item[] items; // items of the current segment
+		private int index; // cursor in items
+		private int end; // one past the last item of the current segment
+
+		/**
+		 * construct an iterator of deque
+		 */
+		public SpillingDequeIterator() {
+			segment = -1;
+			index = end = 0;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Iterator#hasNext()
+		 */
+		@Override
+		public boolean hasNext() {
+			return index < end || segment + 1 < segmentCount;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Iterator#next()
+		 */
+		@Override
+		public Item next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			if (index == end) {
+				Segment current = fromFront(++segment);
+				if (current.items != null) {
+					items = current.items;
+					index = current.head;
+				} else {
+					items = read(current.file);
+					index = 0;
+				}
+				end = index + current.count;
+			}
+			return items[index++];
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Iterator#remove()
+		 */
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+	// unit testing (optional)
+	public static void main(String[] args) throws IOException {
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		SpillingDeque<String> deque = new SpillingDeque<String>(STRINGS, 1024, Files.createTempDirectory("deque"));
+
+		StdOut.println("Adding " + n + " items...");
+		for (int i = 0; i < n; i++)
+			deque.addLast("item" + i);
+		StdOut.println("size = " + deque.size());
+
+		long counted = 0;
+		for (String s : deque)
+			counted++;
+		StdOut.println("iterated = " + counted);
+
+		StdOut.println("Removing from both ends...");
+		boolean inOrder = true;
+		for (int i = 0; i < n / 2; i++) {
+			inOrder &= deque.removeFirst().equals("item" + i);
+			inOrder &= deque.removeLast().equals("item" + (n - 1 - i));
+		}
+		StdOut.println("in order? " + inOrder);
+		StdOut.println("Is the deque empty? " + deque.isEmpty());
+		deque.close();
+	}
+
+}
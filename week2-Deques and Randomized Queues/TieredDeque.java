@@ -0,0 +1,500 @@
+package assign2;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * 
+ * @author Xu Wang
+ * 
+ *         A double-ended queue that also supports reading, replacing, inserting
+ *         and removing an item at any position (a tiered vector).
+ * 
+ *         Mechanism:
+ * 
+ *         1. Items are stored in blocks of L slots, each a small circular
+ *         buffer, and the blocks sit in order in a circular directory. Every
+ *         block except the first and the last is full.
+ * 
+ *         2. Since the middle blocks are full, the block holding position i is
+ *         found with one subtraction and one shift: get() and set() are O(1),
+ *         and the end operations only touch the first or last block.
+ * 
+ *         3. Inserting or removing in the middle shifts at most L items inside
+ *         one block and then moves a single item across each block boundary up
+ *         to the end, which is O(1) per block in a circular buffer: O(L + n/L).
+ * 
+ *         4. L is kept a power of two near sqrt(n), by rebuilding with 2L when
+ *         n grows past 4L^2 and with L/2 when n drops below L^2/4, so middle
+ *         operations are O(sqrt(n)) and the rebuilds are O(1) amortised.
+ *
+ * @param <Item> a generic data type stored in deque
+ */
+public class TieredDeque<Item> implements Iterable<Item> {
+	private static final int MIN_BLOCK = 16;
+
+	// a circular buffer of L slots
+	private class Block {
+		private final Item[] items;
+		private int head; // slot of the first item
+		private int count; // number of items
+
+		public Block() {
+			items = (Item[]) new Object[blockSize];
+		}
+
+		private int slot(int k) {
+			return (head + k) & (items.length - 1);
+		}
+
+		private Item get(int k) {
+			return items[slot(k)];
+		}
+
+		private void set(int k, Item item) {
+			items[slot(k)] = item;
+		}
+
+		private void addFirst(Item item) {
+			head = (head - 1) & (items.length - 1);
+			items[head] = item;
+			count++;
+		}
+
+		private void addLast(Item item) {
+			items[slot(count++)] = item;
+		}
+
+		private Item removeFirst() {
+			Item item = items[head];
+			items[head] = null; // avoid of loitering
+			head = slot(1);
+			count--;
+			return item;
+		}
+
+		private Item removeLast() {
+			int last = slot(--count);
+			Item item = items[last];
+			items[last] = null;
+			return item;
+		}
+
+		// insert at position k, shifting the items after it one slot on
+		private void insert(int k, Item item) {
+			for (int j = count; j > k; j--)
+				set(j, get(j - 1));
+			set(k, item);
+			count++;
+		}
+
+		// remove at position k, shifting the items after it one slot back
+		private Item remove(int k) {
+			Item item = get(k);
+			for (int j = k; j < count - 1; j++)
+				set(j, get(j + 1));
+			set(--count, null);
+			return item;
+		}
+	}
+
+	private int blockSize; // L, a power of two
+	private int blockShift; // log2(L)
+	private Block[] blocks; // circular directory of blocks
+	private int first; // index in blocks of the first block
+	private int blockCount;
+	private int size;
+
+	/**
+	 * construct an empty deque
+	 */
+	public TieredDeque() {
+		init(MIN_BLOCK);
+	}
+
+	// a helper method emptying deque and setting the block size
+	private void init(int blockSize) {
+		this.blockSize = blockSize;
+		blockShift = Integer.numberOfTrailingZeros(blockSize);
+		blocks = (Block[]) java.lang.reflect.Array.newInstance(Block.class, 4);
+		first = 0;
+		blockCount = 0;
+		size = 0;
+	}
+
+	/**
+	 * tell if deque is empty or not
+	 * 
+	 * @return true if deque is empty, else false
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * tell the size of deque
+	 * 
+	 * @return number of items in deque
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * add an item to the front of deque
+	 * 
+	 * @param item item to be inserted
+	 */
+	public void addFirst(Item item) {
+		checkItem(item);
+		if (blockCount == 0 || block(0).count == blockSize)
+			pushBlockFirst();
+		block(0).addFirst(item);
+		size++;
+		grow();
+	}
+
+	/**
+	 * add an item to the end of deque
+	 * 
+	 * @param item item to be inserted
+	 */
+	public void addLast(Item item) {
+		checkItem(item);
+		if (blockCount == 0 || block(blockCount - 1).count == blockSize)
+			pushBlockLast();
+		block(blockCount - 1).addLast(item);
+		size++;
+		grow();
+	}
+
+	/**
+	 * remove and return the item from the front
+	 * 
+	 * @return the item used to be the front of deque
+	 */
+	public Item removeFirst() {
+		if (isEmpty()) {
+			throw new java.util.NoSuchElementException("removing from an empty deque");
+		}
+		Item item = block(0).removeFirst();
+		size--;
+		if (block(0).count == 0)
+			popBlockFirst();
+		shrink();
+		return item;
+	}
+
+	/**
+	 * remove and return the item from the end
+	 * 
+	 * @return the item used to be the end of deque
+	 */
+	public Item removeLast() {
+		if (isEmpty()) {
+			throw new java.util.NoSuchElementException("removing from an empty deque");
+		}
+		Item item = block(blockCount - 1).removeLast();
+		size--;
+		if (block(blockCount - 1).count == 0)
+			popBlockLast();
+		shrink();
+		return item;
+	}
+
+	/**
+	 * read the item at a position, 0 being the front
+	 * 
+	 * @param i position of the item
+	 * @return the item at position i
+	 */
+	public Item get(int i) {
+		checkIndex(i, size);
+		int firstCount = block(0).count;
+		if (i < firstCount)
+			return block(0).get(i);
+		int j = i - firstCount;
+		return block(1 + (j >>> blockShift)).get(j & (blockSize - 1));
+	}
+
+	/**
+	 * replace the item at a position
+	 * 
+	 * @param i position of the item
+	 * @param item the new item
+	 * @return the item used to be at position i
+	 */
+	public Item set(int i, Item item) {
+		checkItem(item);
+		checkIndex(i, size);
+		int firstCount = block(0).count;
+		Block block;
+		int k;
+		if (i < firstCount) {
+			block = block(0);
+			k = i;
+		} else {
+			int j = i - firstCount;
+			block = block(1 + (j >>> blockShift));
+			k = j & (blockSize - 1);
+		}
+		Item old = block.get(k);
+		block.set(k, item);
+		return old;
+	}
+
+	/**
+	 * insert an item at a position, moving the items from there on one place
+	 * towards the end
+	 * 
+	 * @param i position of the new item, from 0 to size()
+	 * @param item item to be inserted
+	 */
+	public void add(int i, Item item) {
+		checkItem(item);
+		checkIndex(i, size + 1);
+		if (i == 0) {
+			addFirst(item);
+			return;
+		}
+		if (i == size) {
+			addLast(item);
+			return;
+		}
+		int b = blockOf(i);
+		int k = positionIn(i, b);
+		if (block(b).count == blockSize) {
+			// make room in block b by moving one item per block to the end
+			if (block(blockCount - 1).count == blockSize)
+				pushBlockLast();
+			for (int j = blockCount - 1; j > b; j--)
+				block(j).addFirst(block(j - 1).removeLast());
+		}
+		block(b).insert(k, item);
+		size++;
+		grow();
+	}
+
+	/**
+	 * remove the item at a position, moving the items after it one place
+	 * towards the front
+	 * 
+	 * @param i position of the item
+	 * @return the item used to be at position i
+	 */
+	public Item removeAt(int i) {
+		checkIndex(i, size);
+		if (i == 0)
+			return removeFirst();
+		if (i == size - 1)
+			return removeLast();
+		int b = blockOf(i);
+		Item item = block(b).remove(positionIn(i, b));
+		if (b == 0) {
+			if (block(0).count == 0)
+				popBlockFirst();
+		} else {
+			// refill block b by moving one item per block from the end
+			for (int j = b + 1; j < blockCount; j++)
+				block(j - 1).addLast(block(j).removeFirst());
+			if (block(blockCount - 1).count == 0)
+				popBlockLast();
+		}
+		size--;
+		shrink();
+		return item;
+	}
+
+	// the block at a distance from the first block
+	private Block block(int b) {
+		return blocks[(first + b) & (blocks.length - 1)];
+	}
+
+	// the block holding position i
+	private int blockOf(int i) {
+		int firstCount = block(0).count;
+		return i < firstCount ? 0 : 1 + ((i - firstCount) >>> blockShift);
+	}
+
+	// the position of item i inside block b
+	private int positionIn(int i, int b) {
+		return b == 0 ? i : (i - block(0).count) & (blockSize - 1);
+	}
+
+	// a helper method adding an empty block before the first one
+	private void pushBlockFirst() {
+		if (blockCount == blocks.length)
+			resizeDirectory(2 * blocks.length);
+		first = (first - 1) & (blocks.length - 1);
+		blocks[first] = new Block();
+		blockCount++;
+	}
+
+	// a helper method adding an empty block after the last one
+	private void pushBlockLast() {
+		if (blockCount == blocks.length)
+			resizeDirectory(2 * blocks.length);
+		blocks[(first + blockCount) & (blocks.length - 1)] = new Block();
+		blockCount++;
+	}
+
+	// a helper method dropping the first block
+	private void popBlockFirst() {
+		blocks[first] = null;
+		first = (first + 1) & (blocks.length - 1);
+		blockCount--;
+	}
+
+	// a helper method dropping the last block
+	private void popBlockLast() {
+		blocks[(first + blockCount - 1) & (blocks.length - 1)] = null;
+		blockCount--;
+	}
+
+	// a helper method resizing the directory
+	private void resizeDirectory(int capacity) {
+		Block[] temp = (Block[]) java.lang.reflect.Array.newInstance(Block.class, capacity);
+		for (int b = 0; b < blockCount; b++) {
+			temp[b] = block(b);
+		}
+		blocks = temp;
+		first = 0;
+	}
+
+	// a helper method doubling L when n grows past 4L^2
+	private void grow() {
+		if (size > 4L * blockSize * blockSize)
+			rebuild(2 * blockSize);
+	}
+
+	// a helper method halving L when n drops below L^2/4
+	private void shrink() {
+		if (blockSize > MIN_BLOCK && size < (long) blockSize * blockSize / 4)
+			rebuild(blockSize / 2);
+	}
+
+	// a helper method copying all items into blocks of a new size
+	private void rebuild(int newBlockSize) {
+		Object[] items = new Object[size];
+		int i = 0;
+		for (Item item : this)
+			items[i++] = item;
+		init(newBlockSize);
+		for (Object item : items) {
+			if (blockCount == 0 || block(blockCount - 1).count == blockSize)
+				pushBlockLast();
+			block(blockCount - 1).addLast((Item) item);
+			size++;
+		}
+	}
+
+	// a helper method rejecting null items
+	private static void checkItem(Object item) {
+		if (item == null) {
+			throw new java.lang.NullPointerException("adding a null item");
+		}
+	}
+
+	// a helper method checking 0 <= i < bound
+	private static void checkIndex(int i, int bound) {
+		if (i < 0 || i >= bound) {
+			throw new java.lang.IndexOutOfBoundsException("index " + i + " out of [0, " + bound + ")");
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Iterable#iterator()
+	 */
+	@Override
+	public Iterator<Item> iterator() {
+		return new TieredDequeIterator();
+	}
+
+	/*
+	 * an inner class that defines the iterator of deque
+	 */
+	private class TieredDequeIterator implements Iterator<Item> {
+		private int block; // current block
+		private int k; // position in the current block
+		private int remaining; // items left
+
+		/**
+		 * construct an iterator of deque
+		 */
+		public TieredDequeIterator() {
+			block = 0;
+			k = 0;
+			remaining = size;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Iterator#hasNext()
+		 */
+		@Override
+		public boolean hasNext() {
+			return remaining > 0;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Iterator#next()
+		 */
+		@Override
+		public Item next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			Block current = block(block);
+			Item item = current.get(k++);
+			if (k == current.count) {
+				block++;
+				k = 0;
+			}
+			remaining--;
+			return item;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Iterator#remove()
+		 */
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+	// unit testing (optional)
+	public static void main(String[] args) {
+		TieredDeque<Integer> deque = new TieredDeque<Integer>();
+		for (int i = 0; i < 10; i++)
+			deque.addLast(i); // 0 1 2 3 4 5 6 7 8 9
+		deque.addFirst(-1); // -1 0 1 ... 9
+		StdOut.println("get(5) = " + deque.get(5)); // 4
+		deque.add(5, 100); // -1 0 1 2 3 100 4 ... 9
+		StdOut.println("removeAt(3) = " + deque.removeAt(3)); // 2
+		deque.set(0, -2);
+
+		StdOut.print("deque: ");
+		for (int i : deque)
+			StdOut.print(i + " "); // -2 0 1 3 100 4 5 6 7 8 9
+		StdOut.println();
+		StdOut.println("size = " + deque.size());
+
+		int n = 1000000;
+		for (int i = 0; i < n; i++)
+			deque.addLast(i);
+		long start = System.nanoTime();
+		for (int i = 0; i < 10000; i++)
+			deque.removeAt(deque.size() / 2);
+		StdOut.println("10000 middle removals at n = " + n + ": " + (System.nanoTime() - start) / 1000000 + " ms");
+	}
+
+}
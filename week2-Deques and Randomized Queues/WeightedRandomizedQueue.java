@@ -0,0 +1,335 @@
+package assign2;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * 
+ * @author Xu Wang
+ * 
+ *         A representation of a queue that the item removed is chosen at
+ *         random with probability proportional to its weight.
+ * 
+ *         Mechanism:
+ * 
+ *         1. Like RandomizedQueue, items and their weights are kept in dense
+ *         resizing arrays, and a removed item is replaced by the last one.
+ * 
+ *         2. A Fenwick tree over the weights answers prefix sums, so a uniform
+ *         number in [0, total weight) is mapped to its item by one descent of
+ *         the tree, and a weight is changed by one climb: enqueue, dequeue and
+ *         sample are all O(log n).
+ * 
+ *         3. Floating-point updates collect rounding error in the tree, and a
+ *         removal that cancels most of the total leaves the error as large as
+ *         what is left. So the tree is rebuilt in O(n) from the exact weights
+ *         when the arrays are resized, after every capacity-many updates (O(1)
+ *         amortized), and whenever the total drops below 1/1024 of its peak
+ *         since the last rebuild, e.g. when a heavy item is removed. The
+ *         iterator does the same on its own copy.
+ *
+ * @param <Item> a generic data type stored in WeightedRandomizedQueue
+ */
+public class WeightedRandomizedQueue<Item> implements Iterable<Item> {
+	private Item[] queue;
+	private double[] weights; // weights[i] is the weight of queue[i]
+	private double[] tree; // Fenwick tree over weights, 1-based
+	private int size;
+	private double peak; // largest total since the tree was built
+	private int updates; // updates since the tree was built
+	private final RandomGenerator random;
+
+	private static final double DRIFT_RATIO = 1024; // rebuild below peak / this
+
+	/**
+	 * construct an empty WeightedRandomizedQueue with a randomly seeded source
+	 */
+	public WeightedRandomizedQueue() {
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * construct an empty WeightedRandomizedQueue drawing from the given source
+	 * 
+	 * @param random the random source of this queue
+	 */
+	public WeightedRandomizedQueue(RandomGenerator random) {
+		if (random == null) {
+			throw new java.lang.NullPointerException("null random source");
+		}
+		queue = (Item[]) new Object[2];
+		weights = new double[2];
+		tree = new double[3];
+		size = 0;
+		this.random = random;
+	}
+
+	/**
+	 * check if WeightedRandomizedQueue is empty or not
+	 * 
+	 * @return true if the queue is empty, else false
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * tell the number of items on the queue
+	 * 
+	 * @return the number of items on the queue
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * add an item with a weight to the queue
+	 * 
+	 * @param item item to be inserted
+	 * @param weight weight of the item, positive and finite
+	 */
+	public void enqueue(Item item, double weight) {
+		if (item == null) {
+			throw new java.lang.NullPointerException("adding a null item");
+		}
+		if (!(weight > 0) || Double.isInfinite(weight)) {
+			throw new java.lang.IllegalArgumentException("weight must be positive and finite");
+		}
+		if (size == queue.length)
+			resize(2 * queue.length);
+		queue[size] = item;
+		weights[size] = weight;
+		update(tree, size, weight);
+		peak += weight;
+		updates++;
+		size++;
+	}
+
+	/**
+	 * remove an item chosen with probability proportional to its weight
+	 * 
+	 * @return the chosen item used to be in the queue
+	 */
+	public Item dequeue() {
+		if (isEmpty()) {
+			throw new java.util.NoSuchElementException("empty queue");
+		}
+		int randomIndex = choose(tree);
+		Item chosenItem = queue[randomIndex];
+		int last = size - 1;
+		// replace with the last item to maintain contiguous memory
+		if (randomIndex != last) {
+			update(tree, randomIndex, weights[last] - weights[randomIndex]);
+			queue[randomIndex] = queue[last];
+			weights[randomIndex] = weights[last];
+		}
+		update(tree, last, -weights[last]);
+		queue[last] = null; // avoid of loitering
+		weights[last] = 0;
+		size--;
+		updates += 2;
+		if (size > 0 && size == queue.length / 4) // shrink when necessary
+			resize(queue.length / 2);
+		else if (drifted(tree, peak, updates))
+			rebuild();
+		return chosenItem;
+	}
+
+	/**
+	 * @return an item chosen with probability proportional to its weight
+	 */
+	public Item sample() {
+		if (isEmpty()) {
+			throw new java.util.NoSuchElementException("empty queue");
+		}
+		return queue[choose(tree)];
+	}
+
+	/*
+	 * a helper method resizing the arrays and rebuilding the tree in O(n)
+	 */
+	private void resize(int capacity) {
+		Item[] temp = (Item[]) new Object[capacity];
+		double[] tempWeights = new double[capacity];
+		for (int i = 0; i < size; i++) {
+			temp[i] = queue[i];
+			tempWeights[i] = weights[i];
+		}
+		queue = temp;
+		weights = tempWeights;
+		rebuild();
+	}
+
+	// a helper method rebuilding the tree from the exact weights
+	private void rebuild() {
+		tree = build(weights);
+		peak = total(tree);
+		updates = 0;
+	}
+
+	// a helper method telling if a tree has collected enough updates, or lost
+	// enough of its total, that its rounding error may matter
+	private static boolean drifted(double[] tree, double peak, int updates) {
+		return updates >= tree.length - 1 || total(tree) < peak / DRIFT_RATIO;
+	}
+
+	// a helper method building a Fenwick tree over weights
+	private static double[] build(double[] weights) {
+		double[] tree = new double[weights.length + 1];
+		for (int i = 1; i < tree.length; i++) {
+			tree[i] += weights[i - 1];
+			int parent = i + (i & -i);
+			if (parent < tree.length)
+				tree[parent] += tree[i];
+		}
+		return tree;
+	}
+
+	// a helper method adding delta to the weight at index i
+	private static void update(double[] tree, int i, double delta) {
+		for (int j = i + 1; j < tree.length; j += j & -j)
+			tree[j] += delta;
+	}
+
+	// a helper method returning the sum of all weights
+	private static double total(double[] tree) {
+		double sum = 0;
+		for (int j = tree.length - 1; j > 0; j -= j & -j)
+			sum += tree[j];
+		return sum;
+	}
+
+	/*
+	 * a helper method choosing an index with probability proportional to its
+	 * weight: descends the tree to the first index whose prefix sum exceeds a
+	 * uniform target
+	 */
+	private int choose(double[] tree) {
+		double target = random.nextDouble() * total(tree);
+		int position = 0;
+		for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+			int next = position + step;
+			if (next < tree.length && tree[next] <= target) {
+				position = next;
+				target -= tree[next];
+			}
+		}
+		// rounding can only push the target past the last item
+		return Math.min(position, size - 1);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Iterable#iterator()
+	 */
+	@Override
+	public Iterator<Item> iterator() {
+		return new WeightedRandomizedQueueIterator();
+	}
+
+	/*
+	 * an inner class defining an iterator that traverses the queue in the
+	 * order of weighted sampling without replacement
+	 * 
+	 * works on its own copy of the weights, zeroing the weight of every item
+	 * it returns, and on a tree over them rebuilt like the queue's own
+	 */
+	private class WeightedRandomizedQueueIterator implements Iterator<Item> {
+		private final double[] left; // exact weights, 0 once returned
+		private double[] remaining; // Fenwick tree over left
+		private double peak;
+		private int updates;
+		private final int n; // number of items when the iterator was created
+		private int counter; // number of items returned so far
+
+		/**
+		 * constructs an iterator
+		 */
+		public WeightedRandomizedQueueIterator() {
+			left = weights.clone();
+			remaining = build(left);
+			peak = total(remaining);
+			n = size;
+			counter = 0;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Iterator#hasNext()
+		 */
+		@Override
+		public boolean hasNext() {
+			return counter < n;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Iterator#next()
+		 */
+		@Override
+		public Item next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			int index = choose(remaining);
+			// items already returned have zero weight, but rounding may land on
+			// one of them; fall back to the next item still left, of which
+			// there is one as counter < n
+			for (int tries = 0; left[index] == 0 && tries < n; tries++)
+				index = (index + 1) % n;
+			update(remaining, index, -left[index]);
+			left[index] = 0;
+			counter++;
+			if (counter < n && drifted(remaining, peak, ++updates)) {
+				remaining = build(left);
+				peak = total(remaining);
+				updates = 0;
+			}
+			return queue[index];
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.Iterator#remove()
+		 */
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+	// unit testing (optional)
+	public static void main(String[] args) {
+		int trials = 100000;
+		int[] dequeued = new int[4];
+		int[] sampled = new int[4];
+		for (int t = 0; t < trials; t++) {
+			WeightedRandomizedQueue<Integer> queue = new WeightedRandomizedQueue<Integer>();
+			for (int i = 0; i < 4; i++)
+				queue.enqueue(i, i + 1); // weights 1, 2, 3, 4
+			sampled[queue.sample()]++;
+			dequeued[queue.dequeue()]++;
+		}
+		StdOut.println("expected shares: 0.1 0.2 0.3 0.4");
+		for (int i = 0; i < 4; i++)
+			StdOut.println(i + ": sampled " + (double) sampled[i] / trials + ", dequeued " + (double) dequeued[i] / trials);
+
+		WeightedRandomizedQueue<String> queue = new WeightedRandomizedQueue<String>();
+		queue.enqueue("light", 1);
+		queue.enqueue("heavy", 100);
+		queue.enqueue("medium", 10);
+		StdOut.println("Iterating...");
+		for (String s : queue)
+			StdOut.println(s);
+		while (!queue.isEmpty())
+			StdOut.println("dequeued " + queue.dequeue() + ", size = " + queue.size());
+	}
+
+}
@@ -0,0 +1,192 @@
+package assign2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ * 
+ * @author Xu Wang
+ * 
+ *         A weighted random sample of at most k items drawn from a stream in a
+ *         single pass (Efraimidis-Spirakis, with exponential keys).
+ * 
+ *         Mechanism:
+ * 
+ *         1. Every item gets the key E / w, where E is an exponential random
+ *         variable and w the weight of the item; the sample is the k items with
+ *         the smallest keys, kept in a max-heap of size k.
+ * 
+ *         2. The key is drawn before the item is built, so an item whose key
+ *         loses against the current k-th smallest is never materialised.
+ * 
+ *         3. Since keys are independent of where an item was seen, reservoirs
+ *         filled from disjoint parts of a stream can be merged by keeping the k
+ *         smallest keys overall, which is exactly the sample of the whole
+ *         stream. With equal weights this is a uniform k-subset.
+ *
+ * @param <Item> a generic data type stored in the reservoir
+ */
+public class WeightedReservoir<Item> implements Iterable<Item> {
+	private final int k;
+	private final RandomGenerator random;
+	private final PriorityQueue<Entry<Item>> heap; // largest key on top
+
+	// an item with its key
+	private static class Entry<Item> {
+		private final Item item;
+		private final double key;
+
+		public Entry(Item item, double key) {
+			this.item = item;
+			this.key = key;
+		}
+	}
+
+	/**
+	 * construct an empty reservoir of capacity k with a randomly seeded source
+	 * 
+	 * @param k the number of items to sample
+	 */
+	public WeightedReservoir(int k) {
+		this(k, new SplittableRandom());
+	}
+
+	/**
+	 * construct an empty reservoir of capacity k drawing from the given source
+	 * 
+	 * @param k the number of items to sample
+	 * @param random the random source of this reservoir
+	 */
+	public WeightedReservoir(int k, RandomGenerator random) {
+		if (k < 0) {
+			throw new java.lang.IllegalArgumentException("negative sample size");
+		}
+		if (random == null) {
+			throw new java.lang.NullPointerException("null random source");
+		}
+		this.k = k;
+		this.random = random;
+		heap = new PriorityQueue<Entry<Item>>(Math.max(1, k), (a, b) -> Double.compare(b.key, a.key));
+	}
+
+	/**
+	 * tell the number of items held
+	 * 
+	 * @return the number of items in the reservoir
+	 */
+	public int size() {
+		return heap.size();
+	}
+
+	/**
+	 * draw the key of the next item of the stream
+	 * 
+	 * @param weight the weight of the item, positive
+	 * @return the key of the item
+	 */
+	public double nextKey(double weight) {
+		if (!(weight > 0) || Double.isInfinite(weight)) {
+			throw new java.lang.IllegalArgumentException("weight must be positive and finite");
+		}
+		return -Math.log(1.0 - random.nextDouble()) / weight;
+	}
+
+	/**
+	 * tell whether an item with this key would enter the reservoir
+	 * 
+	 * @param key a key returned by nextKey()
+	 * @return true if add() with this key would keep the item, else false
+	 */
+	public boolean accepts(double key) {
+		return heap.size() < k || (k > 0 && key < heap.peek().key);
+	}
+
+	/**
+	 * add an item with its key, evicting the largest key if full
+	 * 
+	 * @param item item to be added
+	 * @param key the key of the item
+	 */
+	public void add(Item item, double key) {
+		if (item == null) {
+			throw new java.lang.NullPointerException("adding a null item");
+		}
+		if (!accepts(key))
+			return;
+		if (heap.size() == k)
+			heap.poll();
+		heap.add(new Entry<Item>(item, key));
+	}
+
+	/**
+	 * feed the next item of the stream to the reservoir
+	 * 
+	 * @param item the next item of the stream
+	 * @param weight the weight of the item, positive
+	 */
+	public void offer(Item item, double weight) {
+		double key = nextKey(weight);
+		if (accepts(key))
+			add(item, key);
+	}
+
+	/**
+	 * merge another reservoir into this one; the result is the sample of the
+	 * two streams together
+	 * 
+	 * @param other the reservoir to merge, left unchanged
+	 */
+	public void merge(WeightedReservoir<Item> other) {
+		for (Entry<Item> entry : other.heap)
+			add(entry.item, entry.key);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * the sampled items by increasing key; with equal weights, this is a
+	 * uniformly random order
+	 * 
+	 * @see java.lang.Iterable#iterator()
+	 */
+	@Override
+	public Iterator<Item> iterator() {
+		ArrayList<Entry<Item>> entries = new ArrayList<Entry<Item>>(heap);
+		Collections.sort(entries, (a, b) -> Double.compare(a.key, b.key));
+		ArrayList<Item> items = new ArrayList<Item>(entries.size());
+		for (Entry<Item> entry : entries)
+			items.add(entry.item);
+		return items.iterator();
+	}
+
+	// unit testing (optional)
+	public static void main(String[] args) {
+		int n = 10;
+		int k = 3;
+		int trials = 100000;
+		int[] hits = new int[n];
+		for (int t = 0; t < trials; t++) {
+			// two halves of the stream sampled separately, then merged
+			WeightedReservoir<Integer> left = new WeightedReservoir<Integer>(k);
+			WeightedReservoir<Integer> right = new WeightedReservoir<Integer>(k);
+			for (int i = 0; i < n; i++) {
+				if (i < n / 3)
+					left.offer(i, 1.0);
+				else
+					right.offer(i, 1.0);
+			}
+			left.merge(right);
+			for (int i : left)
+				hits[i]++;
+		}
+		StdOut.println("expected hits per item = " + trials * k / n);
+		for (int i = 0; i < n; i++)
+			StdOut.println(i + ": " + hits[i]);
+	}
+
+}
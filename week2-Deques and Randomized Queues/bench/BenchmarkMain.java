@@ -0,0 +1,41 @@
+package assign2;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 
+ * @author Xu Wang
+ * 
+ *         Runs the week-2 benchmarks with the GC profiler attached, so every
+ *         result comes with its allocation rate and bytes allocated per
+ *         operation (gc.alloc.rate.norm).
+ * 
+ *         The benchmarks need jmh-core on the classpath and
+ *         jmh-generator-annprocess as an annotation processor, next to
+ *         algs4.jar, e.g.
+ * 
+ *         javac -cp algs4.jar:jmh-core.jar -processorpath
+ *         jmh-generator-annprocess.jar:jmh-core.jar -d out *.java bench/*.java
+ * 
+ *         java -cp out:algs4.jar:jmh-core.jar:jopt-simple.jar:commons-math3.jar
+ *         assign2.BenchmarkMain [JMH options, e.g. Deque -p size=1000]
+ *
+ */
+public class BenchmarkMain {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		OptionsBuilder options = new OptionsBuilder();
+		options.parent(commandLine);
+		if (commandLine.getIncludes().isEmpty())
+			options.include("assign2\\..*Benchmark");
+		options.addProfiler(GCProfiler.class);
+		new Runner(options.build()).run();
+	}
+
+}
@@ -0,0 +1,95 @@
+package assign2;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * 
+ * @author Xu Wang
+ * 
+ *         Eight threads sharing one queue, each doing an enqueue followed by a
+ *         dequeue: the striped ConcurrentRandomizedQueue against a
+ *         RandomizedQueue and an ArrayDeque behind one external lock. Run with
+ *         -t to try other thread counts.
+ * 
+ *         A thread enqueues to its own stripe, so the striped queue is filled
+ *         by the benchmark threads themselves, each with an equal share of the
+ *         items; filled from the setup thread, every item would sit in one
+ *         stripe and all threads would contend on its lock.
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ContentionBenchmark {
+	private static final int SIZE = 100000;
+
+	private ConcurrentRandomizedQueue<Integer> striped;
+	private RandomizedQueue<Integer> locked;
+	private ArrayDeque<Integer> lockedArrayDeque;
+	private final Integer item = 1;
+
+	@Setup
+	public void setUp() {
+		striped = new ConcurrentRandomizedQueue<Integer>();
+		locked = new RandomizedQueue<Integer>();
+		lockedArrayDeque = new ArrayDeque<Integer>();
+		for (int i = 0; i < SIZE; i++) {
+			locked.enqueue(i);
+			lockedArrayDeque.addLast(i);
+		}
+	}
+
+	/**
+	 * fills the striped queue from each benchmark thread, into its stripe
+	 */
+	@State(Scope.Thread)
+	public static class StripeFiller {
+		@Setup(Level.Trial)
+		public void fill(ContentionBenchmark benchmark, BenchmarkParams params) {
+			int share = SIZE / params.getThreads();
+			for (int i = 0; i < share; i++)
+				benchmark.striped.enqueue(i);
+		}
+	}
+
+	@Benchmark
+	public Integer stripedRandomizedQueue(StripeFiller filler) {
+		striped.enqueue(item);
+		return striped.dequeue();
+	}
+
+	@Benchmark
+	public Integer lockedRandomizedQueue() {
+		synchronized (locked) {
+			locked.enqueue(item);
+			return locked.dequeue();
+		}
+	}
+
+	@Benchmark
+	public Integer lockedArrayDeque() {
+		synchronized (lockedArrayDeque) {
+			lockedArrayDeque.addLast(item);
+			return lockedArrayDeque.removeFirst();
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+package assign2;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 
+ * @author Xu Wang
+ * 
+ *         Compares Deque with java.util.ArrayDeque.
+ * 
+ *         The end operations run in steady state: the deque is filled with size
+ *         items once, and every invocation adds one item and removes one, so
+ *         the numbers are per operation at that size. Traversal walks the whole
+ *         deque, so it is per size items.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class DequeBenchmark {
+	@Param({ "1000", "100000", "1000000" })
+	private int size;
+
+	private Deque<Integer> deque;
+	private ArrayDeque<Integer> arrayDeque;
+	private Integer item;
+
+	@Setup
+	public void setUp() {
+		deque = new Deque<Integer>();
+		arrayDeque = new ArrayDeque<Integer>();
+		for (int i = 0; i < size; i++) {
+			deque.addLast(i);
+			arrayDeque.addLast(i);
+		}
+		item = size;
+	}
+
+	@Benchmark
+	public Integer addLastRemoveFirst() {
+		deque.addLast(item);
+		return deque.removeFirst();
+	}
+
+	@Benchmark
+	public Integer addFirstRemoveLast() {
+		deque.addFirst(item);
+		return deque.removeLast();
+	}
+
+	@Benchmark
+	public Integer arrayDequeAddLastRemoveFirst() {
+		arrayDeque.addLast(item);
+		return arrayDeque.removeFirst();
+	}
+
+	@Benchmark
+	public Integer arrayDequeAddFirstRemoveLast() {
+		arrayDeque.addFirst(item);
+		return arrayDeque.removeLast();
+	}
+
+	@Benchmark
+	public Iterator<Integer> iteratorConstruction() {
+		return deque.iterator();
+	}
+
+	@Benchmark
+	public void traversal(Blackhole blackhole) {
+		for (Integer i : deque)
+			blackhole.consume(i);
+	}
+
+	@Benchmark
+	public void arrayDequeTraversal(Blackhole blackhole) {
+		for (Integer i : arrayDeque)
+			blackhole.consume(i);
+	}
+
+}
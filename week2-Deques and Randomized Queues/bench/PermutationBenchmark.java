@@ -0,0 +1,126 @@
+package assign2;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import edu.princeton.cs.algs4.StdIn;
+
+/**
+ * 
+ * @author Xu Wang
+ * 
+ *         Runs Permutation end to end on a generated file of random tokens: the
+ *         single-threaded reservoir over a memory-mapped file, the parallel
+ *         range sampler, and, as the baseline, the original Permutation path:
+ *         reading every token through StdIn.readString() and queueing it in a
+ *         RandomizedQueue before dequeuing k. Output is left out of all three.
+ * 
+ *         StdIn reads System.in through a scanner made when the class is
+ *         loaded, so before every call of the baseline System.in is pointed
+ *         at the file and algs4's private StdIn.resync() is called to make a
+ *         new scanner over it.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PermutationBenchmark {
+	@Param({ "100000", "10000000" })
+	private int tokens;
+
+	@Param({ "10", "10000" })
+	private int k;
+
+	private Path input;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		input = Files.createTempFile("permutation", ".txt");
+		SplittableRandom random = new SplittableRandom(42);
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(input))) {
+			for (int i = 0; i < tokens; i++) {
+				int length = 1 + random.nextInt(12);
+				StringBuilder token = new StringBuilder(length);
+				for (int j = 0; j < length; j++)
+					token.append((char) ('a' + random.nextInt(26)));
+				out.print(token);
+				out.print(i % 16 == 15 ? '\n' : ' ');
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(input);
+	}
+
+	@Benchmark
+	public Iterable<String> reservoir() throws IOException {
+		return Permutation.sample(new ByteTokenizer(input), k);
+	}
+
+	@Benchmark
+	public Iterable<String> parallelReservoir() throws IOException, InterruptedException {
+		return Permutation.parallelSample(input, k, Runtime.getRuntime().availableProcessors());
+	}
+
+	@Benchmark
+	public Iterable<String> queueEverything(StandardInput stdin) {
+		// the loop of the original Permutation.main, without the printing
+		RandomizedQueue<String> randomQueue = new RandomizedQueue<String>();
+		while (!StdIn.isEmpty())
+			randomQueue.enqueue(StdIn.readString());
+		RandomizedQueue<String> output = new RandomizedQueue<String>();
+		for (int i = 0; i < k; i++)
+			output.enqueue(randomQueue.dequeue());
+		return output;
+	}
+
+	/**
+	 * points StdIn at the input file for one call of the baseline
+	 */
+	@State(Scope.Thread)
+	public static class StandardInput {
+		private InputStream file;
+		private InputStream original;
+
+		@Setup(Level.Invocation)
+		public void open(PermutationBenchmark benchmark) throws ReflectiveOperationException, IOException {
+			original = System.in;
+			file = new FileInputStream(benchmark.input.toFile());
+			System.setIn(file);
+			Method resync = StdIn.class.getDeclaredMethod("resync");
+			resync.setAccessible(true);
+			resync.invoke(null);
+		}
+
+		@TearDown(Level.Invocation)
+		public void close() throws IOException {
+			System.setIn(original);
+			file.close();
+		}
+	}
+
+}
@@ -0,0 +1,86 @@
+package assign2;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 
+ * @author Xu Wang
+ * 
+ *         Measures RandomizedQueue in steady state at several sizes, with
+ *         java.util.ArrayDeque as the baseline for enqueue and dequeue.
+ * 
+ *         Iterator construction returns the first random item, so it includes
+ *         whatever set-up the iterator does before it can answer; traversal
+ *         visits every item.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class RandomizedQueueBenchmark {
+	@Param({ "1000", "100000", "1000000" })
+	private int size;
+
+	private RandomizedQueue<Integer> queue;
+	private ArrayDeque<Integer> arrayDeque;
+	private Integer item;
+
+	@Setup
+	public void setUp() {
+		queue = new RandomizedQueue<Integer>(new SplittableRandom(42));
+		arrayDeque = new ArrayDeque<Integer>();
+		for (int i = 0; i < size; i++) {
+			queue.enqueue(i);
+			arrayDeque.addLast(i);
+		}
+		item = size;
+	}
+
+	@Benchmark
+	public Integer enqueueDequeue() {
+		queue.enqueue(item);
+		return queue.dequeue();
+	}
+
+	@Benchmark
+	public Integer sample() {
+		return queue.sample();
+	}
+
+	@Benchmark
+	public Integer arrayDequeAddLastRemoveFirst() {
+		arrayDeque.addLast(item);
+		return arrayDeque.removeFirst();
+	}
+
+	@Benchmark
+	public Integer iteratorFirstItem() {
+		Iterator<Integer> iterator = queue.iterator();
+		return iterator.next();
+	}
+
+	@Benchmark
+	public void traversal(Blackhole blackhole) {
+		for (Integer i : queue)
+			blackhole.consume(i);
+	}
+
+}
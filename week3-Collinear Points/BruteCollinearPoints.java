@@ -1,5 +1,9 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdDraw;
 import edu.princeton.cs.algs4.StdOut;
@@ -20,30 +24,25 @@ public class BruteCollinearPoints {
 	private ArrayList<LineSegment> segments;
 
 	public BruteCollinearPoints(Point[] points) {
-		// checking validity of argument
-		check(points);
+		// checking validity of argument, sorting a copy by y-coordinate
+		Point[] pointsClone = check(points);
 
 		/*
 		 * a list of segments created by 4 collinear points; an ArrayList is
 		 * adopted without worrying the size
 		 */
 		segments = new ArrayList<LineSegment>();
-
-		// in case of not changing argument
-		Point[] pointsClone = points.clone();
-
-		Arrays.sort(pointsClone); // sort points by y-coordinate
 		int N = pointsClone.length;
-		double slope1, slope2, slope3;
 
 		for (int i = 0; i < N; i++) {
+			Comparator<Point> bySlope = pointsClone[i].slopeOrder(); // exact
 			for (int j = i + 1; j < N; j++) {
 				for (int k = j + 1; k < N; k++) {
+					// slopes are exact, so no 4th point can fix it
+					if (bySlope.compare(pointsClone[j], pointsClone[k]) != 0)
+						continue;
 					for (int p = k + 1; p < N; p++) {
-						slope1 = pointsClone[i].slopeTo(pointsClone[j]);
-						slope2 = pointsClone[i].slopeTo(pointsClone[k]);
-						slope3 = pointsClone[i].slopeTo(pointsClone[p]);
-						if (Double.compare(slope1, slope2) == 0 && Double.compare(slope2, slope3) == 0) {
+						if (bySlope.compare(pointsClone[j], pointsClone[p]) == 0) {
 							// add the line created to list
 							segments.add(new LineSegment(pointsClone[i], pointsClone[p]));
 						}
@@ -53,8 +52,10 @@ public class BruteCollinearPoints {
 		}
 	}
 
-	// a helper method checking validity of points
-	private void check(Point[] points) {
+	// a helper method checking validity of points, returning a copy sorted by
+	// y-coordinate: after sorting, a repeated point is next to itself, so one
+	// O(n log n) sort replaces comparing every pair
+	private Point[] check(Point[] points) {
 		if (points == null)
 			throw new java.lang.IllegalArgumentException();
 
@@ -62,11 +63,12 @@ public class BruteCollinearPoints {
 			if (points[i] == null)
 				throw new java.lang.IllegalArgumentException();
 
-		for (int i = 0; i < points.length - 1; i++) {
-			for (int j = i + 1; j < points.length; j++)
-				if (points[i].compareTo(points[j]) == 0)
-					throw new java.lang.IllegalArgumentException();
-		}
+		Point[] sorted = points.clone();
+		Arrays.sort(sorted);
+		for (int i = 1; i < sorted.length; i++)
+			if (sorted[i].compareTo(sorted[i - 1]) == 0)
+				throw new java.lang.IllegalArgumentException();
+		return sorted;
 	}
 
 	/**
@@ -85,15 +87,21 @@ public class BruteCollinearPoints {
 		return segments.toArray(new LineSegment[segments.size()]);
 	}
 
-	public static void main(String[] args) {
-		// read the n points from a file
-		In in = new In(args[0]);
-		int n = in.readInt();
-		Point[] points = new Point[n];
-		for (int i = 0; i < n; i++) {
-			int x = in.readInt();
-			int y = in.readInt();
-			points[i] = new Point(x, y);
+	public static void main(String[] args) throws IOException {
+		Point[] points;
+		Path path = Paths.get(args[0]);
+		if (PointFile.isPointFile(path)) // a binary point file, mapped in
+			points = PointFile.load(path).toPoints();
+		else {
+			// read the n points from a file
+			In in = new In(args[0]);
+			int n = in.readInt();
+			points = new Point[n];
+			for (int i = 0; i < n; i++) {
+				int x = in.readInt();
+				int y = in.readInt();
+				points[i] = new Point(x, y);
+			}
 		}
 
 		// draw the points
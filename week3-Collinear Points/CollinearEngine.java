@@ -0,0 +1,244 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ *
+ * @author Xu Wang
+ *
+ *         A reusable engine determining whether 4 or more points are
+ *         collinear, keeping the points as arrays of coordinates instead of
+ *         Point objects and allocating nothing once its buffers are big enough.
+ *         It finds the same segments as FastCollinearPoints, for points with
+ *         coordinates in the assignment's range [0, 32767].
+ *
+ *         Mechanism:
+ *
+ *         1. Pack every point as y * 2^15 + x, which sorts by y-coordinate and
+ *         then by x-coordinate, sort the packed ints and unpack them into the
+ *         arrays xs and ys; repeated points are next to each other then.
+ *
+ *         2. Take every point as the starting point one by one:
+ *
+ *         (1)compute the slope key to every other point once, as an exact
+ *         sortable long (see Point.sortableSlopeTo), into a reused array next
+ *         to the indices of the points;
+ *
+ *         (2)sort keys and indices together by an LSD radix sort, 8 bits at a
+ *         time, skipping every byte that all keys share;
+ *
+ *         (3)a run of 3 or more equal keys is a line through the starting
+ *         point; it makes a maximal segment only if the starting point is the
+ *         lowest point of the run, so every segment is found exactly once,
+ *         from the starting point to the highest point of the run.
+ *
+ *         3. Segments are written as 4 ints (x1, y1, x2, y2) into a reused
+ *         buffer, which grows only when a run finds more segments than before.
+ *
+ */
+public class CollinearEngine {
+	private static final int MAX_COORDINATE = 32767;
+	private static final int SHIFT = 15; // bits of a coordinate
+	private static final int RADIX = 256;
+
+	private int[] xs = new int[0];
+	private int[] ys = new int[0];
+	private int[] packed = new int[0];
+	private long[] keys = new long[0];
+	private long[] keysAux = new long[0];
+	private int[] idx = new int[0];
+	private int[] idxAux = new int[0];
+	private final int[] counts = new int[8 * RADIX];
+	private int[] out = new int[64];
+	private int segmentCount;
+
+	/**
+	 * finds the segments of the first n points, with x-coordinates in xs and
+	 * y-coordinates in ys, replacing the segments of the previous run
+	 *
+	 * @param xs the x-coordinates of the points
+	 * @param ys the y-coordinates of the points
+	 * @param n the number of points
+	 * @return number of segments
+	 * @throws IllegalArgumentException if an array is null or shorter than n,
+	 *         a coordinate is outside [0, 32767], or a point is repeated
+	 */
+	public int find(int[] xs, int[] ys, int n) {
+		if (xs == null || ys == null || n < 0 || xs.length < n || ys.length < n)
+			throw new java.lang.IllegalArgumentException();
+		ensureCapacity(n);
+		for (int i = 0; i < n; i++) {
+			if (xs[i] < 0 || xs[i] > MAX_COORDINATE || ys[i] < 0 || ys[i] > MAX_COORDINATE)
+				throw new java.lang.IllegalArgumentException("coordinate out of range: " + xs[i] + ", " + ys[i]);
+			packed[i] = ys[i] << SHIFT | xs[i];
+		}
+		Arrays.sort(packed, 0, n); // sort all points by y-coordinate
+		for (int i = 0; i < n; i++) {
+			if (i > 0 && packed[i] == packed[i - 1])
+				throw new java.lang.IllegalArgumentException("repeated point");
+			this.xs[i] = packed[i] & MAX_COORDINATE;
+			this.ys[i] = packed[i] >>> SHIFT;
+		}
+
+		segmentCount = 0;
+		for (int i = 0; i < n - 3; i++)
+			scan(i, n);
+		return segmentCount;
+	}
+
+	// a helper method growing the buffers to hold n points, if needed
+	private void ensureCapacity(int n) {
+		if (xs.length >= n)
+			return;
+		xs = new int[n];
+		ys = new int[n];
+		packed = new int[n];
+		keys = new long[n];
+		keysAux = new long[n];
+		idx = new int[n];
+		idxAux = new int[n];
+	}
+
+	// a helper method finding the segments whose lowest point is point i
+	private void scan(int i, int n) {
+		int x0 = xs[i], y0 = ys[i];
+		int m = 0;
+		for (int j = 0; j < n; j++) {
+			if (j == i)
+				continue;
+			// flip the sign bit so that the keys sort as unsigned bytes
+			keys[m] = Point.sortableSlope(xs[j] - x0, ys[j] - y0) ^ Long.MIN_VALUE;
+			idx[m++] = j;
+		}
+		sort(m);
+
+		int lo = 0;
+		while (lo < m) {
+			long key = keys[lo];
+			int min = idx[lo], max = idx[lo];
+			int hi = lo + 1;
+			while (hi < m && keys[hi] == key) {
+				min = Math.min(min, idx[hi]);
+				max = Math.max(max, idx[hi]);
+				hi++;
+			}
+			// points below have smaller indices; the line goes on if any is there
+			if (hi - lo > 2 && min > i)
+				emit(max, i);
+			lo = hi;
+		}
+	}
+
+	// a helper method sorting the first m keys, and their indices along, by LSD
+	// radix sort
+	private void sort(int m) {
+		Arrays.fill(counts, 0);
+		for (int k = 0; k < m; k++) {
+			long key = keys[k];
+			for (int b = 0; b < 8; b++)
+				counts[b * RADIX + (int) (key >>> (b * 8) & 0xFF)]++;
+		}
+
+		for (int b = 0; b < 8; b++) {
+			int base = b * RADIX;
+			int shift = b * 8;
+			if (counts[base + (int) (keys[0] >>> shift & 0xFF)] == m)
+				continue; // every key has the same byte here
+
+			// turn counts into starting positions
+			int sum = 0;
+			for (int d = 0; d < RADIX; d++) {
+				int c = counts[base + d];
+				counts[base + d] = sum;
+				sum += c;
+			}
+			for (int k = 0; k < m; k++) {
+				int to = counts[base + (int) (keys[k] >>> shift & 0xFF)]++;
+				keysAux[to] = keys[k];
+				idxAux[to] = idx[k];
+			}
+
+			long[] keysTemp = keys;
+			keys = keysAux;
+			keysAux = keysTemp;
+			int[] idxTemp = idx;
+			idx = idxAux;
+			idxAux = idxTemp;
+		}
+	}
+
+	// a helper method adding the segment from point far to point start
+	private void emit(int far, int start) {
+		if (4 * segmentCount + 4 > out.length)
+			out = Arrays.copyOf(out, 2 * out.length);
+		int at = 4 * segmentCount++;
+		out[at] = xs[far];
+		out[at + 1] = ys[far];
+		out[at + 2] = xs[start];
+		out[at + 3] = ys[start];
+	}
+
+	/**
+	 *
+	 * @return number of segments found by the last run
+	 */
+	public int numberOfSegments() {
+		return segmentCount;
+	}
+
+	/**
+	 * returns the buffer of the last run, holding segment k as (x1, y1, x2,
+	 * y2) at index 4k for k less than numberOfSegments(); the buffer is reused,
+	 * so it is only valid until the next run
+	 *
+	 * @return the buffer of end points of the segments
+	 */
+	public int[] endPoints() {
+		return out;
+	}
+
+	/**
+	 *
+	 * @return a array of segments that resulted from collinear points in the
+	 *         last run
+	 */
+	public LineSegment[] segments() {
+		LineSegment[] result = new LineSegment[segmentCount];
+		for (int k = 0; k < segmentCount; k++) {
+			int at = 4 * k;
+			result[k] = new LineSegment(new Point(out[at], out[at + 1]), new Point(out[at + 2], out[at + 3]));
+		}
+		return result;
+	}
+
+	public static void main(String[] args) throws IOException {
+		int n;
+		int[] xs, ys;
+		Path path = Paths.get(args[0]);
+		if (PointFile.isPointFile(path)) { // a binary point file, mapped in
+			PointFile file = PointFile.load(path);
+			n = file.size();
+			xs = file.xs();
+			ys = file.ys();
+		} else {
+			// read the n points from a file
+			In in = new In(args[0]);
+			n = in.readInt();
+			xs = new int[n];
+			ys = new int[n];
+			for (int i = 0; i < n; i++) {
+				xs[i] = in.readInt();
+				ys[i] = in.readInt();
+			}
+		}
+
+		// print the line segments
+		CollinearEngine engine = new CollinearEngine();
+		StdOut.println("number of segments: " + engine.find(xs, ys, n));
+		for (LineSegment segment : engine.segments())
+			StdOut.println(segment);
+	}
+}
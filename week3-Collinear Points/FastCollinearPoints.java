@@ -1,5 +1,12 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import edu.princeton.cs.algs4.In;
 import edu.princeton.cs.algs4.StdDraw;
 import edu.princeton.cs.algs4.StdOut;
@@ -30,37 +37,24 @@ import edu.princeton.cs.algs4.StdOut;
  *         (3)if found, add to list of lines
  * 
  *         (4)a longer line is always found before its sub lines are, so sub
- *         lines can be avoided by checking if a new found line's starting point
- *         is already on a previous line.
+ *         lines can be avoided by checking if the line has been found before:
+ *         every found line is kept in a hash set under its exact key (see
+ *         Point.lineKey), so the check is O(1) expected however many lines
+ *         there are, and the whole search is O(n^2 log n).
  * 
- *         3. Construct segments from the list of lines.
+ *         3. In parallel mode, the starting points are cut into chunks that
+ *         ForkJoin tasks scan at the same time, each chunk with a scratch
+ *         array of its own, keeping every line found as a candidate. The
+ *         candidates are then merged into the hash set chunk by chunk, in the
+ *         order of starting points, so the result is the same as the
+ *         sequential one.
  * 
  */
 public class FastCollinearPoints {
 	private ArrayList<LineSegment> segments;
-	private ArrayList<line> lines;
+	private HashSet<Point.LineKey> lines; // lines found so far
 
-	// a inner class representing a line with starting point, end point its
-	// slope
-	private class line {
-		private Point end;
-		private Point start;
-		private double slope;
-
-		/**
-		 * construct a line
-		 * 
-		 * @param end end point
-		 * @param start starting point
-		 * @param slope slope of line
-		 */
-		public line(Point end, Point start, double slope) {
-			this.end = end;
-			this.start = start;
-			this.slope = slope;
-		}
-
-	}
+	private static final int CHUNK = 32; // starting points per parallel task
 
 	/**
 	 * starts to seek for collinear lines given a set of points
@@ -68,69 +62,130 @@ public class FastCollinearPoints {
 	 * @param points a set of points on a plane
 	 */
 	public FastCollinearPoints(Point[] points) {
-		check(points);
-		segments = new ArrayList<LineSegment>();
-		lines = new ArrayList<line>();
-		Point[] ptsClone = points.clone();
-		Arrays.sort(ptsClone); // sort all points by y-coordinate
-
-		for (int i = 0; i < ptsClone.length - 3; i++) {
-
-			Point[] pts = Arrays.copyOfRange(ptsClone, i, ptsClone.length);
-			Point startPoint = pts[0];
-
-			// sort by slope relative to start point
-			Arrays.sort(pts, startPoint.slopeOrder());
+		this(points, false);
+	}
 
-			int mid1 = 1, mid2 = mid1 + 1;
-			while (mid2 < pts.length) {
-				// from smallest to largest slope, sweeping counter-clockwise
-				double slope = startPoint.slopeTo(pts[mid1]);
+	/**
+	 * starts to seek for collinear lines given a set of points, on all cores
+	 * of the common ForkJoin pool if parallel is true; the segments are the
+	 * same, in the same order, either way
+	 * 
+	 * @param points a set of points on a plane
+	 * @param parallel whether to scan the starting points in parallel
+	 */
+	public FastCollinearPoints(Point[] points, boolean parallel) {
+		Point[] ptsClone = check(points); // sorted by y-coordinate
+		segments = new ArrayList<LineSegment>();
+		lines = new HashSet<Point.LineKey>();
+		int starts = Math.max(ptsClone.length - 3, 0);
+
+		if (!parallel) {
+			Point[] scratch = new Point[ptsClone.length];
+			ArrayList<Candidate> found = new ArrayList<Candidate>();
+			for (int i = 0; i < starts; i++) {
+				scan(ptsClone, i, scratch, found);
+				merge(found);
+				found.clear();
+			}
+			return;
+		}
 
-				while (mid2 < pts.length && Double.compare(startPoint.slopeTo(pts[mid2]), slope) == 0)
-					mid2++;
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		ArrayList<Candidate>[] found = new ArrayList[(starts + CHUNK - 1) / CHUNK];
+		if (found.length > 0)
+			ForkJoinPool.commonPool().invoke(new ScanTask(ptsClone, found, 0, found.length));
+		for (ArrayList<Candidate> chunk : found)
+			merge(chunk);
+	}
 
-				if (mid2 - mid1 > 2 && !isEndPointCounted(startPoint, slope))
-					lines.add(new line(startPoint, pts[mid2 - 1], slope));
+	// a helper method finding the lines of 4 or more points through the
+	// starting point pts[i] and the points above it, sorted in scratch
+	private static void scan(Point[] pts, int i, Point[] scratch, ArrayList<Candidate> found) {
+		int n = pts.length - i;
+		System.arraycopy(pts, i, scratch, 0, n);
+		Point startPoint = scratch[0];
+
+		// sort by slope relative to start point
+		Comparator<Point> bySlope = startPoint.slopeOrder();
+		Arrays.sort(scratch, 0, n, bySlope);
+
+		int mid1 = 1, mid2 = mid1 + 1;
+		while (mid2 < n) {
+			// from smallest to largest slope, sweeping counter-clockwise
+			while (mid2 < n && bySlope.compare(scratch[mid1], scratch[mid2]) == 0)
+				mid2++;
+
+			// a line from the starting point to the very far end
+			if (mid2 - mid1 > 2)
+				found.add(new Candidate(startPoint.lineKey(scratch[mid1]), startPoint, scratch[mid2 - 1]));
+
+			mid1 = mid2; // check the second smallest slope
+			mid2 = mid1 + 1;
+		}
+	}
 
-				mid1 = mid2; // check the second smallest slope
-				mid2 = mid1 + 1;
+	// a helper method adding the candidates of lines not found before, in order
+	private void merge(ArrayList<Candidate> found) {
+		for (Candidate c : found)
+			if (lines.add(c.key))
+				segments.add(new LineSegment(c.end, c.start));
+	}
 
-			}
+	// a line found from one starting point, not yet checked against the others
+	private static final class Candidate {
+		private final Point.LineKey key;
+		private final Point start;
+		private final Point end;
 
+		private Candidate(Point.LineKey key, Point start, Point end) {
+			this.key = key;
+			this.start = start;
+			this.end = end;
 		}
+	}
 
-		for (line p : lines) {
-			// construct a segment from the starting point to the very far end
-			segments.add(new LineSegment(p.start, p.end));
+	// scans the chunks [lo, hi) of starting points into found[lo..hi)
+	private static final class ScanTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final Point[] pts;
+		private final ArrayList<Candidate>[] found;
+		private final int lo, hi;
+
+		private ScanTask(Point[] pts, ArrayList<Candidate>[] found, int lo, int hi) {
+			this.pts = pts;
+			this.found = found;
+			this.lo = lo;
+			this.hi = hi;
 		}
 
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+			if (hi - lo > 1) { // early chunks cost the most, so split all the way
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new ScanTask(pts, found, lo, mid), new ScanTask(pts, found, mid, hi));
+				return;
+			}
+			// a chunk scans 32 starting points, so one array of the points from
+			// its first starting point up is cheap next to the sorting
+			int start = lo * CHUNK;
+			Point[] buffer = new Point[pts.length - start];
+			ArrayList<Candidate> chunk = new ArrayList<Candidate>();
+			int end = Math.min(start + CHUNK, pts.length - 3);
+			for (int i = start; i < end; i++)
+				scan(pts, i, buffer, chunk);
+			found[lo] = chunk;
+		}
 	}
 
-	/*
-	 * a helper function used to check if the starting point of a new found line
-	 * is already on a previous line
-	 * 
-	 * For example, for a set of points (0,0), (1,1), (2,2), (3,3), (4,4),
-	 * (5,5), (6,6), line (0,0) -> (6,6) is found first; then (1,1) -> (6,6) is
-	 * found, however, it is just a sub line of the previous line, which doesn't
-	 * count.
-	 */
-	private boolean isEndPointCounted(Point startPoint, double slope) {
-		for (line l : lines)
-			/*
-			 * there already exists a line whose slope is the same as the new
-			 * found line, also the slope can be defined by the two starting
-			 * points of the two lines, which means the new found line is a sub
-			 * line of the previous line
-			 */
-			if (l.slope == slope && l.start.slopeTo(startPoint) == slope)
-				return true;
-		return false;
-	}
-
-	// a helper method checking validity of points
-	private void check(Point[] points) {
+	// a helper method checking validity of points, returning a copy sorted by
+	// y-coordinate: after sorting, a repeated point is next to itself, so one
+	// O(n log n) sort replaces comparing every pair
+	private Point[] check(Point[] points) {
 		if (points == null)
 			throw new java.lang.IllegalArgumentException();
 
@@ -138,11 +193,12 @@ public class FastCollinearPoints {
 			if (points[i] == null)
 				throw new java.lang.IllegalArgumentException();
 
-		for (int i = 0; i < points.length - 1; i++) {
-			for (int j = i + 1; j < points.length; j++)
-				if (points[i].compareTo(points[j]) == 0)
-					throw new java.lang.IllegalArgumentException();
-		}
+		Point[] sorted = points.clone();
+		Arrays.sort(sorted);
+		for (int i = 1; i < sorted.length; i++)
+			if (sorted[i].compareTo(sorted[i - 1]) == 0)
+				throw new java.lang.IllegalArgumentException();
+		return sorted;
 	}
 
 	/**
@@ -161,15 +217,21 @@ public class FastCollinearPoints {
 		return segments.toArray(new LineSegment[segments.size()]);
 	}
 
-	public static void main(String[] args) {
-		// read the n points from a file
-		In in = new In(args[0]);
-		int n = in.readInt();
-		Point[] points = new Point[n];
-		for (int i = 0; i < n; i++) {
-			int x = in.readInt();
-			int y = in.readInt();
-			points[i] = new Point(x, y);
+	public static void main(String[] args) throws IOException {
+		Point[] points;
+		Path path = Paths.get(args[0]);
+		if (PointFile.isPointFile(path)) // a binary point file, mapped in
+			points = PointFile.load(path).toPoints();
+		else {
+			// read the n points from a file
+			In in = new In(args[0]);
+			int n = in.readInt();
+			points = new Point[n];
+			for (int i = 0; i < n; i++) {
+				int x = in.readInt();
+				int y = in.readInt();
+				points[i] = new Point(x, y);
+			}
 		}
 
 		// draw the points
@@ -179,7 +241,8 @@ public class FastCollinearPoints {
 		StdDraw.setPenRadius(0.004);
 
 		// print and draw the line segments
-		FastCollinearPoints collinear = new FastCollinearPoints(points);
+		boolean parallel = args.length > 1 && args[1].equals("parallel");
+		FastCollinearPoints collinear = new FastCollinearPoints(points, parallel);
 		StdOut.println("number of segments: " + collinear.numberOfSegments());
 		for (LineSegment segment : collinear.segments()) {
 			StdOut.println(segment);
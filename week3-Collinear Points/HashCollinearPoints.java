@@ -0,0 +1,216 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdDraw;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ *
+ * @author Xu Wang
+ *
+ *         A representation of a strategy determining whether 4 or more points
+ *         are collinear by hashing slopes instead of sorting them, finding the
+ *         same segments as FastCollinearPoints in expected O(n^2) time.
+ *
+ *         Mechanism:
+ *
+ *         1. Sort the array of points by y-coordinate and from lowest point to
+ *         highest point
+ *
+ *         2. Take every point as the starting point one by one:
+ *
+ *         (1)group the points above the starting point by their exact slope key
+ *         (see Point.slopeKey) in a hash table, counting the points of each
+ *         slope and keeping the last one, which is the highest;
+ *
+ *         (2)look up the slopes of the points below the starting point: a
+ *         slope found in the table means the line goes on below, so the
+ *         starting point is not the lowest point of that line;
+ *
+ *         (3)a slope with 3 or more points and nothing below makes a maximal
+ *         segment from the starting point to its highest point, which is found
+ *         from its lowest point only, so no line is ever added twice.
+ *
+ *         3. The table is an open-addressing table of primitive longs, made
+ *         once for all starting points; instead of being cleared, each
+ *         starting point gets a new generation stamp, and slots with an older
+ *         stamp count as empty.
+ * 
+ *         4. Slopes are hashed by their 64-bit keys, so the coordinates must
+ *         lie in [-2^30, 2^30), as the assignment's range does; the sorting
+ *         detectors take any int coordinates.
+ *
+ */
+public class HashCollinearPoints {
+	private ArrayList<LineSegment> segments;
+
+	/**
+	 * starts to seek for collinear lines given a set of points
+	 *
+	 * @param points a set of points on a plane
+	 */
+	public HashCollinearPoints(Point[] points) {
+		Point[] pts = check(points); // sorted by y-coordinate
+		segments = new ArrayList<LineSegment>();
+		SlopeTable table = new SlopeTable(pts.length);
+
+		for (int i = 0; i < pts.length - 3; i++) {
+			Point startPoint = pts[i];
+			table.reset();
+
+			for (int j = i + 1; j < pts.length; j++)
+				table.add(startPoint.slopeKey(pts[j]), j);
+
+			if (table.lines == 0) // nothing to rule out
+				continue;
+
+			for (int j = 0; j < i; j++)
+				table.markLower(startPoint.slopeKey(pts[j]));
+
+			for (int k = 0; k < table.lines; k++) {
+				int slot = table.lineSlots[k];
+				if (!table.lower[slot])
+					segments.add(new LineSegment(pts[table.last[slot]], startPoint));
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @author Xu Wang
+	 *
+	 *         An open-addressing hash table from slope keys to the number of
+	 *         points with that slope, the index of the last of them and whether
+	 *         any point lies on the other side, reused across starting points.
+	 *
+	 */
+	private static final class SlopeTable {
+		private final long[] keys;
+		private final int[] stamps; // generation of each slot, older is empty
+		private final int[] counts;
+		private final int[] last;
+		private final boolean[] lower;
+		private final int[] lineSlots; // slots that reached 3 points, in order
+		private final int mask;
+		private final int shift;
+		private int generation;
+		private int lines;
+
+		// a table for up to n keys, at most half full
+		private SlopeTable(int n) {
+			int capacity = Integer.highestOneBit(Math.max(2 * n - 1, 1)) << 1;
+			keys = new long[capacity];
+			stamps = new int[capacity];
+			counts = new int[capacity];
+			last = new int[capacity];
+			lower = new boolean[capacity];
+			lineSlots = new int[n];
+			mask = capacity - 1;
+			shift = 64 - Integer.numberOfTrailingZeros(capacity);
+		}
+
+		// a helper method emptying the table in O(1)
+		private void reset() {
+			if (++generation == 0) { // wrapped around, clear for real once
+				Arrays.fill(stamps, 0);
+				generation = 1;
+			}
+			lines = 0;
+		}
+
+		// a helper method spreading the bits of a key over the top of a long
+		private int slotOf(long key) {
+			return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+		}
+
+		// a helper method counting a point of index j with the given slope
+		private void add(long key, int j) {
+			int slot = slotOf(key);
+			while (stamps[slot] == generation && keys[slot] != key)
+				slot = (slot + 1) & mask;
+			if (stamps[slot] != generation) {
+				stamps[slot] = generation;
+				keys[slot] = key;
+				counts[slot] = 0;
+				lower[slot] = false;
+			}
+			last[slot] = j;
+			if (++counts[slot] == 3)
+				lineSlots[lines++] = slot;
+		}
+
+		// a helper method marking a slope as going on below the starting point
+		private void markLower(long key) {
+			int slot = slotOf(key);
+			while (stamps[slot] == generation) {
+				if (keys[slot] == key) {
+					lower[slot] = true;
+					return;
+				}
+				slot = (slot + 1) & mask;
+			}
+		}
+	}
+
+	// a helper method checking validity of points, returning a copy sorted by
+	// y-coordinate: after sorting, a repeated point is next to itself, so one
+	// O(n log n) sort replaces comparing every pair
+	private Point[] check(Point[] points) {
+		if (points == null)
+			throw new java.lang.IllegalArgumentException();
+
+		for (int i = 0; i < points.length; i++)
+			if (points[i] == null)
+				throw new java.lang.IllegalArgumentException();
+
+		Point[] sorted = points.clone();
+		Arrays.sort(sorted);
+		for (int i = 1; i < sorted.length; i++)
+			if (sorted[i].compareTo(sorted[i - 1]) == 0)
+				throw new java.lang.IllegalArgumentException();
+		return sorted;
+	}
+
+	/**
+	 *
+	 * @return number of segments
+	 */
+	public int numberOfSegments() {
+		return segments.size();
+	}
+
+	/**
+	 *
+	 * @return a array of segments that resulted from collinear points
+	 */
+	public LineSegment[] segments() {
+		return segments.toArray(new LineSegment[segments.size()]);
+	}
+
+	public static void main(String[] args) {
+		// read the n points from a file
+		In in = new In(args[0]);
+		int n = in.readInt();
+		Point[] points = new Point[n];
+		for (int i = 0; i < n; i++) {
+			int x = in.readInt();
+			int y = in.readInt();
+			points[i] = new Point(x, y);
+		}
+
+		// draw the points
+		StdDraw.enableDoubleBuffering();
+		StdDraw.setXscale(0, 32768);
+		StdDraw.setYscale(0, 32768);
+		StdDraw.setPenRadius(0.004);
+
+		// print and draw the line segments
+		HashCollinearPoints collinear = new HashCollinearPoints(points);
+		StdOut.println("number of segments: " + collinear.numberOfSegments());
+		for (LineSegment segment : collinear.segments()) {
+			StdOut.println(segment);
+			segment.draw();
+		}
+		StdDraw.show();
+	}
+}
@@ -0,0 +1,215 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ *
+ * @author Xu Wang
+ *
+ *         A representation of an online strategy determining whether 4 or more
+ *         points are collinear, where points are added one at a time and every
+ *         segment formed or extended by a new point is reported as it happens.
+ *
+ *         Mechanism:
+ *
+ *         1. Keep the points added so far and an index of every line holding 4
+ *         or more of them, by its exact key (see Point.lineKey), with its
+ *         lowest point, its highest point and its number of points.
+ *
+ *         2. To add a point:
+ *
+ *         (1)group the existing points by their exact slope key from the new
+ *         point (see Point.slopeKey), counting the points of each slope and
+ *         keeping the lowest and the highest; every existing point on a line
+ *         through the new point has the same slope, so a group of k points is
+ *         a line of k + 1 points;
+ *
+ *         (2)a group of 3 points forms a new line: index it and report its
+ *         segment;
+ *
+ *         (3)a group of 4 or more points is a line already indexed: count the
+ *         new point, and if it is now the lowest or highest point, report the
+ *         longer segment along with the one it replaces.
+ *
+ *         3. Each add costs O(n) expected time instead of running the whole
+ *         O(n^2 log n) search again. Slopes are hashed by their 64-bit keys,
+ *         so the coordinates must lie in [-2^30, 2^30).
+ *
+ */
+public class IncrementalCollinearPoints {
+	private ArrayList<Point> points;
+	private LinkedHashMap<Point.LineKey, Line> lines; // lines of 4 or more points
+	private SegmentListener listener;
+
+	/**
+	 *
+	 * @author Xu Wang
+	 *
+	 *         A callback told of every segment a new point forms or extends.
+	 *
+	 */
+	public interface SegmentListener {
+		/**
+		 * called after a point was added
+		 *
+		 * @param segment the new maximal segment
+		 * @param previous the segment it extends, or null if it is a new line
+		 */
+		void segmentChanged(LineSegment segment, LineSegment previous);
+	}
+
+	/**
+	 * creates an empty detector that reports nothing
+	 */
+	public IncrementalCollinearPoints() {
+		this(null);
+	}
+
+	/**
+	 * creates an empty detector
+	 *
+	 * @param listener the callback for new or extended segments, or null
+	 */
+	public IncrementalCollinearPoints(SegmentListener listener) {
+		points = new ArrayList<Point>();
+		lines = new LinkedHashMap<Point.LineKey, Line>();
+		this.listener = listener;
+	}
+
+	/**
+	 * adds a point and reports the segments it forms or extends
+	 *
+	 * @param p the point to add
+	 * @throws IllegalArgumentException if p is null or has been added before;
+	 *         nothing is changed then
+	 */
+	public void add(Point p) {
+		if (p == null)
+			throw new java.lang.IllegalArgumentException();
+
+		// group first, so that a repeated point is rejected before any change
+		HashMap<Long, Group> groups = new HashMap<Long, Group>();
+		for (Point q : points) {
+			long slope = p.slopeKey(q);
+			if (slope == 0)
+				throw new java.lang.IllegalArgumentException("repeated point " + p);
+			Group group = groups.get(slope);
+			if (group == null)
+				groups.put(slope, new Group(q));
+			else
+				group.add(q);
+		}
+		points.add(p);
+
+		for (Group group : groups.values()) {
+			if (group.count < 3)
+				continue;
+			Point.LineKey key = p.lineKey(group.min);
+			Line line = lines.get(key);
+			if (line == null) { // 3 points and the new one form a line
+				line = new Line(group.min, group.max, group.count);
+				line.add(p);
+				lines.put(key, line);
+				report(line.segment(), null);
+				continue;
+			}
+			LineSegment previous = line.segment();
+			if (line.add(p))
+				report(line.segment(), previous);
+		}
+	}
+
+	// a helper method telling the listener, if any
+	private void report(LineSegment segment, LineSegment previous) {
+		if (listener != null)
+			listener.segmentChanged(segment, previous);
+	}
+
+	// the lowest and highest of a group of points and how many there are
+	private static class Group {
+		Point min;
+		Point max;
+		int count;
+
+		Group(Point p) {
+			min = p;
+			max = p;
+			count = 1;
+		}
+
+		// a helper method counting a point, true if it is a new end point
+		boolean add(Point p) {
+			count++;
+			if (p.compareTo(min) < 0) {
+				min = p;
+				return true;
+			}
+			if (p.compareTo(max) > 0) {
+				max = p;
+				return true;
+			}
+			return false;
+		}
+	}
+
+	// an indexed line of 4 or more points
+	private static class Line extends Group {
+		private Line(Point min, Point max, int count) {
+			super(min);
+			this.max = max;
+			this.count = count;
+		}
+
+		private LineSegment segment() {
+			return new LineSegment(max, min);
+		}
+	}
+
+	/**
+	 *
+	 * @return number of points added
+	 */
+	public int size() {
+		return points.size();
+	}
+
+	/**
+	 *
+	 * @return number of segments
+	 */
+	public int numberOfSegments() {
+		return lines.size();
+	}
+
+	/**
+	 *
+	 * @return a array of the maximal segments of the points added so far, in
+	 *         the order their lines were formed
+	 */
+	public LineSegment[] segments() {
+		LineSegment[] result = new LineSegment[lines.size()];
+		int i = 0;
+		for (Line line : lines.values())
+			result[i++] = line.segment();
+		return result;
+	}
+
+	public static void main(String[] args) {
+		// read the n points from a file, adding them one at a time
+		In in = new In(args[0]);
+		int n = in.readInt();
+		IncrementalCollinearPoints collinear = new IncrementalCollinearPoints(
+				(segment, previous) -> StdOut.println(previous == null ? "new: " + segment
+						: "extended: " + previous + " to " + segment));
+		for (int i = 0; i < n; i++) {
+			int x = in.readInt();
+			int y = in.readInt();
+			collinear.add(new Point(x, y));
+		}
+		StdOut.println("number of segments: " + collinear.numberOfSegments());
+		for (LineSegment segment : collinear.segments())
+			StdOut.println(segment);
+	}
+}
@@ -1,4 +1,3 @@
-
 /******************************************************************************
  *  Compilation:  javac Point.java
  *  Execution:    java Point
@@ -81,6 +80,135 @@ public class Point implements Comparable<Point> {
 		}
 	}
 
+	/**
+	 * @author Xu Wang
+	 * 
+	 *         Returns the exact slope between this point and the specified point
+	 *         as a key packed in a long: the direction (dy, dx) divided by its
+	 *         gcd and turned to point right (dx > 0), or up if vertical, with
+	 *         dy in the high 32 bits and dx in the low 32 bits. Two pairs of
+	 *         points have the same slope if and only if their keys are equal, so
+	 *         keys can be compared with == and hashed. The key of two equal
+	 *         points is 0, which no other pair has.
+	 * 
+	 *         The reduced differences of coordinates must lie in (-2^31, 2^31),
+	 *         which holds for all coordinates in [-2^30, 2^30); else an
+	 *         IllegalArgumentException is thrown, as no 64-bit key can tell all
+	 *         slopes of int coordinates apart. Only the detectors that hash slopes
+	 *         use keys; slopeOrder() compares slopes exactly for all coordinates.
+	 *
+	 * @param that the other point
+	 * @return the exact slope key between this point and the specified point
+	 */
+	public long slopeKey(Point that) {
+		return slopeKey((long) that.x - x, (long) that.y - y);
+	}
+
+	// a helper method computing slopeKey() from the differences of coordinates,
+	// shared with code that keeps coordinates without Point objects
+	static long slopeKey(long dx, long dy) {
+		long g = gcd(Math.abs(dx), Math.abs(dy));
+		if (g == 0)
+			return 0;
+		dx /= g;
+		dy /= g;
+		if (dx < 0 || (dx == 0 && dy < 0)) { // one direction per slope
+			dx = -dx;
+			dy = -dy;
+		}
+		// checked once turned, as turning can make -2^31 into 2^31, which
+		// would not fit in the low half or would overflow the high half
+		if (dx > Integer.MAX_VALUE || Math.abs(dy) > Integer.MAX_VALUE)
+			throw new java.lang.IllegalArgumentException("points too far apart for an exact slope key");
+		return (dy << 32) | dx;
+	}
+
+	/**
+	 * @author Xu Wang
+	 * 
+	 *         Compares two slope keys by the slopes they stand for, in the order
+	 *         of slopeTo(): the key of equal points first, then from steepest
+	 *         negative to steepest positive, then vertical (see compareSlopes).
+	 *
+	 * @param a a key returned by slopeKey()
+	 * @param b a key returned by slopeKey()
+	 * @return a negative integer, zero, or a positive integer as the slope of a
+	 *         is less than, equal to, or greater than the slope of b
+	 */
+	public static int compareSlopeKeys(long a, long b) {
+		if (a == b)
+			return 0;
+		return compareSlopes((int) a, a >> 32, (int) b, b >> 32);
+	}
+
+	/**
+	 * @author Xu Wang
+	 * 
+	 *         Compares the slopes of two directions (dxA, dyA) and (dxB, dyB),
+	 *         given as differences of int coordinates, in the order of
+	 *         slopeTo(): (0, 0) first, then from steepest negative to steepest
+	 *         positive, then vertical. The differences need not be reduced; the
+	 *         cross-products are compared in 128 bits, so the order is exact and
+	 *         total for all int coordinates.
+	 *
+	 * @return a negative integer, zero, or a positive integer as the slope of
+	 *         (dxA, dyA) is less than, equal to, or greater than that of (dxB,
+	 *         dyB)
+	 */
+	static int compareSlopes(long dxA, long dyA, long dxB, long dyB) {
+		if (dxA == 0 && dyA == 0 || dxB == 0 && dyB == 0) // like NEGATIVE_INFINITY
+			return (dxB == 0 && dyB == 0 ? 1 : 0) - (dxA == 0 && dyA == 0 ? 1 : 0);
+		if (dxA == 0 || dxB == 0) // vertical, like POSITIVE_INFINITY
+			return (dxA == 0 ? 1 : 0) - (dxB == 0 ? 1 : 0);
+		if (dxA < 0) { // turn both to point right, keeping their slopes
+			dxA = -dxA;
+			dyA = -dyA;
+		}
+		if (dxB < 0) {
+			dxB = -dxB;
+			dyB = -dyB;
+		}
+		// dyA / dxA against dyB / dxB; each product may take 65 bits
+		long a = dyA * dxB, b = dyB * dxA;
+		long highA = Math.multiplyHigh(dyA, dxB), highB = Math.multiplyHigh(dyB, dxA);
+		if (highA != highB)
+			return Long.compare(highA, highB);
+		return Long.compareUnsigned(a, b);
+	}
+
+	/**
+	 * @author Xu Wang
+	 * 
+	 *         Returns the slope between this point and the specified point as a
+	 *         long whose natural order is the order of slopeTo(): floor(dy * 2^31
+	 *         / dx), with Long.MIN_VALUE for equal points and Long.MAX_VALUE for
+	 *         a vertical line. Flipping the sign bit (key ^ Long.MIN_VALUE) gives
+	 *         a key for unsigned radix sorting.
+	 * 
+	 *         Two different slopes of points in the assignment's range [0, 32767]
+	 *         differ by at least 2^-30, so for those points the key is exact:
+	 *         equal slopes give equal keys and different slopes different keys.
+	 *         Farther apart points keep the order but may share a key.
+	 *
+	 * @param that the other point
+	 * @return a sortable slope key between this point and the specified point
+	 */
+	public long sortableSlopeTo(Point that) {
+		return sortableSlope((long) that.x - x, (long) that.y - y);
+	}
+
+	// a helper method computing sortableSlopeTo() from the differences of
+	// coordinates, shared with code that keeps coordinates in int arrays
+	static long sortableSlope(long dx, long dy) {
+		if (dx == 0)
+			return dy == 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+		if (dx < 0) {
+			dx = -dx;
+			dy = -dy;
+		}
+		return Math.floorDiv(dy << 31, dx);
+	}
+
 	/**
 	 * 
 	 * @author Xu Wang
@@ -148,8 +276,6 @@ public class Point implements Comparable<Point> {
 	 */
 	private static class BySlopeOrder implements Comparator<Point> {
 		private Point point;
-		private double slope1;
-		private double slope2;
 
 		public BySlopeOrder(Point point) {
 			this.point = point;
@@ -161,12 +287,14 @@ public class Point implements Comparable<Point> {
 		 * @return the value of 1 if the slope of point o1 and the specified
 		 *         point > that of o2; value of -1 if that of point o1 < that of
 		 *         o2; value of 0 if their slopes are the same
+		 * 
+		 *         slopes are compared exactly by the differences of coordinates,
+		 *         so two slopes that differ are never rounded to the same double
 		 */
 		@Override
 		public int compare(Point o1, Point o2) {
-			slope1 = point.slopeTo(o1);
-			slope2 = point.slopeTo(o2);
-			int result = Double.compare(slope1, slope2);
+			int result = compareSlopes((long) o1.x - point.x, (long) o1.y - point.y, (long) o2.x - point.x,
+					(long) o2.y - point.y);
 			if (result < 0)
 				return -1;
 			if (result == 0)
@@ -176,6 +304,77 @@ public class Point implements Comparable<Point> {
 		}
 	}
 
+	/*
+	 * Returns the key of the line through this point and the specified point.
+	 * The key is the same for any two points on one line, and different for
+	 * points on different lines, so it can be hashed to find a line again.
+	 */
+	LineKey lineKey(Point that) {
+		long dx = (long) that.x - x;
+		long dy = (long) that.y - y;
+		long g = gcd(Math.abs(dx), Math.abs(dy));
+		if (g == 0)
+			throw new java.lang.IllegalArgumentException("no line through a single point");
+		dx /= g;
+		dy /= g;
+		if (dx < 0 || (dx == 0 && dy < 0)) { // one direction per line
+			dx = -dx;
+			dy = -dy;
+		}
+		// |dy * x| and |dx * y| are below 2^63, their difference below 2^64
+		long a = dy * x, b = dx * y;
+		long high = (a >> 63) - (b >> 63) - (Long.compareUnsigned(a, b) < 0 ? 1 : 0);
+		return new LineKey(dx, dy, high, a - b);
+	}
+
+	// greatest common divisor of two non-negative numbers
+	private static long gcd(long a, long b) {
+		while (b != 0) {
+			long r = a % b;
+			a = b;
+			b = r;
+		}
+		return a;
+	}
+
+	/*
+	 * @author Xu Wang
+	 * 
+	 * An exact representation of a line: its reduced direction (dx, dy) and the
+	 * intercept term dy * x - dx * y shared by every point (x, y) on the line,
+	 * kept in 128 bits as it may not fit in a long. Two lines are the same if
+	 * and only if their keys are equal, for all int coordinates and without any
+	 * floating-point rounding.
+	 */
+	static final class LineKey {
+		private final long dx;
+		private final long dy;
+		private final long interceptHigh;
+		private final long interceptLow;
+
+		private LineKey(long dx, long dy, long interceptHigh, long interceptLow) {
+			this.dx = dx;
+			this.dy = dy;
+			this.interceptHigh = interceptHigh;
+			this.interceptLow = interceptLow;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof LineKey))
+				return false;
+			LineKey that = (LineKey) other;
+			return dx == that.dx && dy == that.dy && interceptHigh == that.interceptHigh
+					&& interceptLow == that.interceptLow;
+		}
+
+		@Override
+		public int hashCode() {
+			long h = ((dy * 31 + dx) * 31 + interceptHigh) * 31 + interceptLow;
+			return Long.hashCode(h * 0x9E3779B97F4A7C15L);
+		}
+	}
+
 	/**
 	 * Returns a string representation of this point. This method is provide for
 	 * debugging; your program should not rely on the format of the string
@@ -0,0 +1,273 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ *
+ * @author Xu Wang
+ *
+ *         A compact binary file of points, loaded by mapping the file into
+ *         memory and copying the coordinates straight into two int arrays,
+ *         without parsing text or making a Point per line.
+ *
+ *         Format (little-endian, the order of common hardware, so that the
+ *         loader copies ints without swapping their bytes):
+ *
+ *         1. A header of 16 bytes: the magic number, the bytes "PTF1"; an
+ *         int of flags and a long count of points.
+ *
+ *         2. Without the DELTA flag, the points as pairs of int32 x and y.
+ *
+ *         3. With the DELTA flag, every point as the differences of x and y
+ *         from the point before (from (0, 0) for the first), each zigzag
+ *         encoded so that small negative numbers stay small and written as a
+ *         varint of 7 bits per byte, lowest first; the converter sorts the
+ *         points by y-coordinate first so that most differences take 1 or 2
+ *         bytes.
+ *
+ */
+public class PointFile {
+	public static final int MAGIC = 0x31465450; // "PTF1" in the file
+	public static final int DELTA = 1; // flag of delta encoded points
+	private static final int HEADER = 16;
+	private static final int WINDOW = 1 << 30; // bytes mapped at a time
+	private static final int CHUNK = 1 << 16; // ints copied at a time
+
+	private final int[] xs;
+	private final int[] ys;
+
+	private PointFile(int[] xs, int[] ys) {
+		this.xs = xs;
+		this.ys = ys;
+	}
+
+	/**
+	 * checks if a file starts with the magic number of this format
+	 *
+	 * @param path the file
+	 * @return true if it is a point file
+	 * @throws IOException if the file cannot be read
+	 */
+	public static boolean isPointFile(Path path) throws IOException {
+		if (!Files.isRegularFile(path) || Files.size(path) < HEADER)
+			return false;
+		try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining() && file.read(header) > 0)
+				;
+			return header.getInt(0) == MAGIC;
+		}
+	}
+
+	/**
+	 * loads a point file
+	 *
+	 * @param path the file
+	 * @return the points of the file
+	 * @throws IOException if the file cannot be opened or mapped
+	 * @throws IllegalArgumentException if the file is not a valid point file
+	 */
+	public static PointFile load(Path path) throws IOException {
+		try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+			long fileSize = file.size();
+			if (fileSize < HEADER)
+				throw new java.lang.IllegalArgumentException("not a point file: " + path);
+			ByteBuffer buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(WINDOW, fileSize));
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			int flags = buffer.getInt(4);
+			long count = buffer.getLong(8);
+			if (buffer.getInt(0) != MAGIC || count < 0 || count > Integer.MAX_VALUE - 8)
+				throw new java.lang.IllegalArgumentException("not a point file: " + path);
+			// every point takes at least 2 bytes, so a count the file cannot hold
+			// is rejected before the arrays are allocated
+			if (count > (fileSize - HEADER) / 2)
+				throw new java.lang.IllegalArgumentException("wrong size of point file: " + path);
+			int n = (int) count;
+			int[] xs = new int[n];
+			int[] ys = new int[n];
+
+			if ((flags & DELTA) == 0) {
+				if (fileSize != HEADER + 8L * n)
+					throw new java.lang.IllegalArgumentException("wrong size of point file: " + path);
+				int[] chunk = new int[CHUNK];
+				long base = HEADER;
+				int i = 0;
+				while (i < n) {
+					buffer = file.map(FileChannel.MapMode.READ_ONLY, base, Math.min(WINDOW, fileSize - base));
+					IntBuffer ints = buffer.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+					while (ints.hasRemaining()) {
+						int length = Math.min(CHUNK, ints.remaining());
+						ints.get(chunk, 0, length);
+						for (int k = 0; k < length; k += 2, i++) {
+							xs[i] = chunk[k];
+							ys[i] = chunk[k + 1];
+						}
+					}
+					base += buffer.capacity();
+				}
+			} else {
+				long base = HEADER;
+				buffer = file.map(FileChannel.MapMode.READ_ONLY, base, Math.min(WINDOW, fileSize - base));
+				int x = 0, y = 0;
+				for (int i = 0; i < n; i++) {
+					if (buffer.remaining() < 10 && base + buffer.capacity() < fileSize) {
+						// a varint may go on past this window, map the next one here
+						base += buffer.position();
+						buffer = file.map(FileChannel.MapMode.READ_ONLY, base, Math.min(WINDOW, fileSize - base));
+					}
+					x += unzigzag(readVarint(buffer));
+					y += unzigzag(readVarint(buffer));
+					xs[i] = x;
+					ys[i] = y;
+				}
+			}
+			return new PointFile(xs, ys);
+		} catch (java.nio.BufferUnderflowException e) {
+			throw new java.lang.IllegalArgumentException("truncated point file: " + path);
+		}
+	}
+
+	/**
+	 * writes the first n points to a point file
+	 *
+	 * @param path the file
+	 * @param xs the x-coordinates of the points
+	 * @param ys the y-coordinates of the points
+	 * @param n the number of points
+	 * @param delta whether to delta encode the points, in the order given
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(Path path, int[] xs, int[] ys, int n, boolean delta) throws IOException {
+		if (xs == null || ys == null || n < 0 || xs.length < n || ys.length < n)
+			throw new java.lang.IllegalArgumentException();
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+			out.writeInt(Integer.reverseBytes(MAGIC));
+			out.writeInt(Integer.reverseBytes(delta ? DELTA : 0));
+			out.writeLong(Long.reverseBytes(n));
+			int x = 0, y = 0;
+			for (int i = 0; i < n; i++) {
+				if (delta) {
+					writeVarint(out, zigzag(xs[i] - x));
+					writeVarint(out, zigzag(ys[i] - y));
+					x = xs[i];
+					y = ys[i];
+				} else {
+					out.writeInt(Integer.reverseBytes(xs[i]));
+					out.writeInt(Integer.reverseBytes(ys[i]));
+				}
+			}
+		}
+	}
+
+	// a helper method mapping ..., -2, -1, 0, 1, 2, ... to ..., 3, 1, 0, 2, 4, ...
+	private static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	// a helper method writing 7 bits per byte, lowest first, with the high bit
+	// set on every byte but the last
+	private static void writeVarint(OutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarint(ByteBuffer buffer) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+		throw new java.lang.IllegalArgumentException("malformed varint");
+	}
+
+	/**
+	 *
+	 * @return number of points
+	 */
+	public int size() {
+		return xs.length;
+	}
+
+	/**
+	 *
+	 * @return the x-coordinates of the points, not a copy
+	 */
+	public int[] xs() {
+		return xs;
+	}
+
+	/**
+	 *
+	 * @return the y-coordinates of the points, not a copy
+	 */
+	public int[] ys() {
+		return ys;
+	}
+
+	/**
+	 *
+	 * @return a new Point for each point, for the detectors taking Point[]
+	 */
+	public Point[] toPoints() {
+		Point[] points = new Point[xs.length];
+		for (int i = 0; i < points.length; i++)
+			points[i] = new Point(xs[i], ys[i]);
+		return points;
+	}
+
+	/**
+	 * converts a file of points in the text format of the assignment to a
+	 * point file: java PointFile input.txt output.bin [delta]
+	 *
+	 * @param args the text file, the point file and "delta" to delta encode
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		In in = new In(args[0]);
+		int n = in.readInt();
+		int[] xs = new int[n];
+		int[] ys = new int[n];
+		for (int i = 0; i < n; i++) {
+			xs[i] = in.readInt();
+			ys[i] = in.readInt();
+		}
+
+		boolean delta = args.length > 2 && args[2].equals("delta");
+		if (delta) { // sort by y-coordinate, then x-coordinate, for small deltas
+			long[] packed = new long[n];
+			for (int i = 0; i < n; i++)
+				packed[i] = (long) ys[i] << 32 | (xs[i] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+			Arrays.sort(packed);
+			for (int i = 0; i < n; i++) {
+				xs[i] = (int) packed[i] ^ Integer.MIN_VALUE;
+				ys[i] = (int) (packed[i] >> 32);
+			}
+		}
+
+		Path out = Paths.get(args[1]);
+		write(out, xs, ys, n, delta);
+		StdOut.println(n + " points, " + Files.size(out) + " bytes");
+	}
+}
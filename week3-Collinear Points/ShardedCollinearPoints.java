@@ -0,0 +1,596 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+/**
+ *
+ * @author Xu Wang
+ *
+ *         An out-of-core strategy determining whether 4 or more points are
+ *         collinear, for point sets too big to keep in memory as Point objects.
+ *         Points are read from a file and kept on disk in temporary files; the
+ *         memory used stays within a budget given in bytes, plus small fixed
+ *         buffers.
+ *
+ *         Mechanism:
+ *
+ *         1. Spatial shards: read the points in runs that fit in the budget,
+ *         pack each point as a long that sorts by y-coordinate and then by
+ *         x-coordinate, sort every run and write it to a file; merge the runs
+ *         into shard files of consecutive points, so every shard is a band of
+ *         the plane from lowest to highest. A repeated point is next to itself
+ *         in the merge and is rejected there.
+ *
+ *         2. Take the starting points in batches from one shard at a time and
+ *         stream all the shards once per batch, making a tuple (starting
+ *         point, exact slope key, point) for every other point (see
+ *         Point.slopeKey). The tuples of one starting point and one slope are
+ *         the line through it in that direction; a group of them counts the
+ *         points above the starting point, keeps the highest and notes if any
+ *         point is below.
+ *
+ *         3. If the groups of the batch fit in the table of the budget, the
+ *         tuples go straight into it. Otherwise they are split by a hash of
+ *         (starting point, slope) into up to 256 partition files, written once;
+ *         every group is in one partition, so the partitions are grouped one
+ *         at a time, independently, and a partition whose groups do not fit is
+ *         split again with another hash.
+ *
+ *         4. A group of 3 or more points above and nothing below makes a
+ *         maximal segment from the starting point to its highest point, so
+ *         every segment is found once, from its lowest point, whatever shards
+ *         or partitions its points went through; slope keys are exact, so
+ *         there is nothing to merge across borders.
+ *
+ *         5. The work is O(n^2), a slope key per pair of points, as for
+ *         HashCollinearPoints, and so is the I/O, whatever the budget: the
+ *         points are read at most once per starting point, 8 n^2 bytes, and
+ *         while the groups of one starting point fit in the table (with about
+ *         260 bytes of budget per point) batches share that pass and nothing
+ *         else is written. Below that, every pair is also written to a
+ *         partition and read back, 40 bytes, and once more per further split,
+ *         which is only needed when a starting point has over 256 tables' worth
+ *         of points. The partitions of a batch take up to about 40 times the
+ *         budget of disk, or 20 bytes per point if that is more. Memory and
+ *         disk no longer bound the number of points; the n^2 pairs do.
+ *
+ *         Slope keys need coordinates in [-2^30, 2^30).
+ *
+ */
+public class ShardedCollinearPoints {
+	private static final long MIN_BUDGET = 1 << 20;
+	private static final int IO_BUFFER = 1 << 16;
+	private static final int PARTITIONS = 256; // files a batch is split into at most
+	private static final int MAX_DEPTH = 4; // times a partition may be split again
+	private static final int TUPLE_BYTES = 20; // starting point, slope key and point
+
+	private ArrayList<LineSegment> segments;
+	private final Path dir; // temporary files
+	private final ArrayList<Path> shards = new ArrayList<Path>();
+	private long[] shardStarts = new long[8]; // rank of the first point of each shard
+	private long n;
+	private int files; // partition files made, for their names
+
+	private final int runLength;
+	private final int shardLength;
+	private final int partitionBuffer; // bytes of buffer per partition file
+	private GroupTable table;
+
+	/**
+	 * starts to seek for collinear lines given a file of points, in the format
+	 * of the assignment: the number of points and then their coordinates
+	 *
+	 * @param filename the file of points
+	 * @param budget the memory to use, in bytes
+	 * @throws IllegalArgumentException if the budget is below 1 MB, a point is
+	 *         repeated or points are too far apart for exact slopes
+	 * @throws IOException if the temporary files fail
+	 */
+	public ShardedCollinearPoints(String filename, long budget) throws IOException {
+		if (filename == null || budget < MIN_BUDGET)
+			throw new java.lang.IllegalArgumentException();
+		runLength = (int) Math.min(budget / 8, Integer.MAX_VALUE - 8);
+		shardLength = (int) Math.min(budget / 32, Integer.MAX_VALUE - 8);
+		partitionBuffer = (int) Math.max(512, Math.min(IO_BUFFER, budget / 4 / PARTITIONS));
+		int capacity = Integer.highestOneBit((int) Math.min(budget / 2 / GroupTable.ENTRY_BYTES, 1 << 30));
+		segments = new ArrayList<LineSegment>();
+		dir = Files.createTempDirectory("collinear");
+		try {
+			In in = new In(filename);
+			try {
+				shard(split(in));
+			} finally {
+				in.close();
+			}
+
+			// the table is made after phase 1, which uses the budget for runs
+			table = new GroupTable(capacity);
+			for (int s = 0; s < shards.size(); s++)
+				scanShard(s);
+		} finally {
+			try (DirectoryStream<Path> left = Files.newDirectoryStream(dir)) {
+				for (Path file : left)
+					Files.deleteIfExists(file);
+			}
+			Files.deleteIfExists(dir);
+		}
+	}
+
+	// a helper method packing a point as a long in order of Point.compareTo
+	private static long pack(int x, int y) {
+		return (long) y << 32 | (x ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+	}
+
+	private static int xOf(long point) {
+		return (int) point ^ Integer.MIN_VALUE;
+	}
+
+	private static int yOf(long point) {
+		return (int) (point >> 32);
+	}
+
+	// phase 1: a helper method writing the points in sorted runs
+	private ArrayList<Path> split(In in) throws IOException {
+		ArrayList<Path> runs = new ArrayList<Path>();
+		long total = in.readLong();
+		long[] run = new long[(int) Math.min(runLength, total)];
+		long read = 0;
+		while (read < total) {
+			int length = (int) Math.min(run.length, total - read);
+			for (int i = 0; i < length; i++) {
+				int x = in.readInt();
+				int y = in.readInt();
+				run[i] = pack(x, y);
+			}
+			read += length;
+			Arrays.sort(run, 0, length);
+			Path path = dir.resolve("run" + runs.size());
+			try (DataOutputStream out = writer(path, IO_BUFFER)) {
+				for (int i = 0; i < length; i++)
+					out.writeLong(run[i]);
+			}
+			runs.add(path);
+		}
+		return runs;
+	}
+
+	// phase 1: a helper method merging sorted runs into shards
+	private void shard(ArrayList<Path> runs) throws IOException {
+		int buffer = (int) Math.max(4096, Math.min(IO_BUFFER, runLength * 8L / Math.max(runs.size(), 1)));
+		PriorityQueue<LongReader> heap = new PriorityQueue<LongReader>(Math.max(runs.size(), 1),
+				(a, b) -> Long.compare(a.value, b.value));
+		DataOutputStream out = null;
+		try {
+			for (Path run : runs) {
+				LongReader reader = new LongReader(run, buffer);
+				if (reader.next())
+					heap.add(reader);
+				else
+					reader.close();
+			}
+
+			long previous = 0;
+			int inShard = shardLength;
+			while (!heap.isEmpty()) {
+				LongReader reader = heap.poll();
+				long point = reader.value;
+				if (n > 0 && point == previous)
+					throw new java.lang.IllegalArgumentException("repeated point " + new Point(xOf(point), yOf(point)));
+				if (inShard == shardLength) { // start the next band
+					if (out != null)
+						out.close();
+					Path path = dir.resolve("shard" + shards.size());
+					if (shards.size() == shardStarts.length)
+						shardStarts = Arrays.copyOf(shardStarts, 2 * shardStarts.length);
+					shardStarts[shards.size()] = n;
+					shards.add(path);
+					out = writer(path, IO_BUFFER);
+					inShard = 0;
+				}
+				out.writeLong(point);
+				inShard++;
+				n++;
+				previous = point;
+				if (reader.next())
+					heap.add(reader);
+				else
+					reader.close();
+			}
+		} finally {
+			if (out != null)
+				out.close();
+			for (LongReader reader : heap)
+				reader.close();
+			for (Path run : runs)
+				Files.deleteIfExists(run);
+		}
+	}
+
+	// phase 2: a helper method finding the segments starting in shard s
+	private void scanShard(int s) throws IOException {
+		long first = shardStarts[s];
+		if (first >= n - 3) // no starting point here has 3 points above
+			return;
+		long[] anchors = load(shards.get(s));
+		int usable = (int) Math.min(anchors.length, n - 3 - first);
+		long pairs = n - 1; // tuples of every starting point
+		long half = table.capacity / 2; // tuples a table is expected to take
+
+		int from = 0;
+		while (from < usable) {
+			int batch, partitions;
+			if (pairs <= half) { // whole starting points fit, share the table
+				batch = (int) Math.min(usable - from, half / pairs);
+				partitions = 1;
+			} else {
+				batch = (int) Math.max(1, Math.min(usable - from, PARTITIONS * half / pairs));
+				partitions = (int) Math.min(PARTITIONS, (batch * pairs + half - 1) / half);
+			}
+			int to = from + batch;
+
+			if (partitions == 1) {
+				table.reset();
+				stream(anchors, from, to, null);
+				emit(anchors, from);
+			} else {
+				Partitioner parts = new Partitioner(partitions, 0);
+				try {
+					stream(anchors, from, to, parts);
+				} finally {
+					parts.close();
+				}
+				for (Path part : parts.paths)
+					group(part, anchors, from, 0);
+			}
+			from = to;
+		}
+	}
+
+	// a helper method reading a whole shard
+	private static long[] load(Path shard) throws IOException {
+		long[] points = new long[(int) (Files.size(shard) / 8)];
+		try (LongReader reader = new LongReader(shard, IO_BUFFER)) {
+			for (int i = 0; reader.next(); i++)
+				points[i] = reader.value;
+		}
+		return points;
+	}
+
+	// step 2: a helper method making the tuples of the starting points
+	// anchors[from, to) in one pass over all shards, into the table if parts
+	// is null or else into the partitions
+	private void stream(long[] anchors, int from, int to, Partitioner parts) throws IOException {
+		for (Path shard : shards) {
+			try (LongReader reader = new LongReader(shard, IO_BUFFER)) {
+				while (reader.next()) {
+					long p = reader.value;
+					for (int a = from; a < to; a++) {
+						long anchor = anchors[a];
+						if (p == anchor)
+							continue;
+						long key = Point.slopeKey((long) xOf(p) - xOf(anchor), (long) yOf(p) - yOf(anchor));
+						if (parts == null)
+							table.add(a - from, key, p, p < anchor);
+						else
+							parts.write(a - from, key, p);
+					}
+				}
+			}
+		}
+	}
+
+	// step 3: a helper method grouping one partition, splitting it again if
+	// its groups do not fit in the table
+	private void group(Path part, long[] anchors, int from, int depth) throws IOException {
+		table.reset();
+		boolean fits = true;
+		try (TupleReader in = new TupleReader(part)) {
+			while (fits && in.next())
+				fits = table.add(in.anchor, in.key, in.point, in.point < anchors[from + in.anchor]);
+		}
+		if (fits) {
+			emit(anchors, from);
+			Files.delete(part);
+			return;
+		}
+		if (depth == MAX_DEPTH)
+			throw new java.lang.IllegalStateException("memory budget too small");
+
+		long tuples = Files.size(part) / TUPLE_BYTES;
+		Partitioner parts = new Partitioner((int) Math.min(PARTITIONS, 2 * tuples / table.capacity + 2), depth + 1);
+		try (TupleReader in = new TupleReader(part)) {
+			while (in.next())
+				parts.write(in.anchor, in.key, in.point);
+		} finally {
+			parts.close();
+		}
+		Files.delete(part);
+		for (Path sub : parts.paths)
+			group(sub, anchors, from, depth + 1);
+	}
+
+	// step 4: a helper method adding the segments of the groups in the table
+	private void emit(long[] anchors, int from) {
+		for (int k = 0; k < table.size; k++) {
+			int slot = table.used[k];
+			if (table.counts[slot] > 2 && !table.lower[slot]) {
+				long start = anchors[from + table.anchors[slot]];
+				long end = table.highest[slot];
+				segments.add(new LineSegment(new Point(xOf(end), yOf(end)), new Point(xOf(start), yOf(start))));
+			}
+		}
+	}
+
+	// a helper method mixing a starting point and a slope key into 64 bits,
+	// differently for every salt
+	private static long spread(int anchor, long key, int salt) {
+		long h = key * 0x9E3779B97F4A7C15L + anchor + salt * 0xD6E8FEB86659FD93L;
+		h = (h ^ (h >>> 32)) * 0xD6E8FEB86659FD93L;
+		return h ^ (h >>> 32);
+	}
+
+	/**
+	 *
+	 * @author Xu Wang
+	 *
+	 *         An open-addressing hash table of groups keyed by (starting point,
+	 *         slope key), holding the number of points above, the highest of
+	 *         them and whether any point is below; instead of being cleared,
+	 *         it gets a new generation stamp, and slots with an older stamp
+	 *         count as empty.
+	 *
+	 */
+	private static final class GroupTable {
+		// stamp, starting point, key, count, highest, flag and used slot
+		private static final int ENTRY_BYTES = 33;
+
+		private final int capacity;
+		private final int[] stamps; // generation of each slot, older is empty
+		private final int[] anchors; // index of the starting point in its batch
+		private final long[] keys;
+		private final int[] counts; // points above the starting point
+		private final long[] highest;
+		private final boolean[] lower;
+		private final int[] used; // slots in use, in order
+		private final int limit; // groups at most, three quarters full
+		private final int shift;
+		private int generation;
+		private int size;
+
+		private GroupTable(int capacity) {
+			this.capacity = capacity;
+			stamps = new int[capacity];
+			anchors = new int[capacity];
+			keys = new long[capacity];
+			counts = new int[capacity];
+			highest = new long[capacity];
+			lower = new boolean[capacity];
+			limit = capacity / 4 * 3;
+			used = new int[limit];
+			shift = 64 - Integer.numberOfTrailingZeros(capacity);
+		}
+
+		// a helper method emptying the table in O(1)
+		private void reset() {
+			if (++generation == 0) { // wrapped around, clear for real once
+				Arrays.fill(stamps, 0);
+				generation = 1;
+			}
+			size = 0;
+		}
+
+		// a helper method counting a point in its group, false if the group is
+		// new and the table is full
+		private boolean add(int anchor, long key, long point, boolean below) {
+			int mask = capacity - 1;
+			int slot = (int) (spread(anchor, key, 0) >>> shift);
+			while (stamps[slot] == generation && (keys[slot] != key || anchors[slot] != anchor))
+				slot = (slot + 1) & mask;
+			if (stamps[slot] != generation) {
+				if (size == limit)
+					return false;
+				stamps[slot] = generation;
+				anchors[slot] = anchor;
+				keys[slot] = key;
+				counts[slot] = 0;
+				highest[slot] = Long.MIN_VALUE;
+				lower[slot] = false;
+				used[size++] = slot;
+			}
+			if (below)
+				lower[slot] = true;
+			else {
+				counts[slot]++;
+				if (point > highest[slot])
+					highest[slot] = point;
+			}
+			return true;
+		}
+	}
+
+	// a set of partition files that tuples are split into by hash, each
+	// written through a buffer of its own
+	private final class Partitioner implements Closeable {
+		private final Path[] paths;
+		private final FileChannel[] channels;
+		private final ByteBuffer[] buffers;
+		private final int salt;
+
+		private Partitioner(int count, int depth) throws IOException {
+			paths = new Path[count];
+			channels = new FileChannel[count];
+			buffers = new ByteBuffer[count];
+			salt = depth + 1; // the table uses salt 0
+			try {
+				for (int i = 0; i < count; i++) {
+					paths[i] = dir.resolve("part" + files++);
+					channels[i] = FileChannel.open(paths[i], StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+					buffers[i] = ByteBuffer.allocate(partitionBuffer / TUPLE_BYTES * TUPLE_BYTES);
+				}
+			} catch (IOException e) {
+				close();
+				throw e;
+			}
+		}
+
+		// a helper method writing a tuple to the partition of its group
+		private void write(int anchor, long key, long point) throws IOException {
+			int i = (int) ((spread(anchor, key, salt) >>> 1) % buffers.length);
+			ByteBuffer buffer = buffers[i];
+			if (!buffer.hasRemaining())
+				flush(i);
+			buffer.putInt(anchor).putLong(key).putLong(point);
+		}
+
+		// a helper method writing out the buffer of partition i
+		private void flush(int i) throws IOException {
+			ByteBuffer buffer = buffers[i];
+			buffer.flip();
+			while (buffer.hasRemaining())
+				channels[i].write(buffer);
+			buffer.clear();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.io.Closeable#close()
+		 */
+		@Override
+		public void close() throws IOException {
+			IOException failure = null;
+			for (int i = 0; i < channels.length; i++) {
+				if (channels[i] == null)
+					continue;
+				try {
+					flush(i);
+					channels[i].close();
+				} catch (IOException e) {
+					channels[i].close();
+					failure = e;
+				}
+			}
+			if (failure != null)
+				throw failure;
+		}
+	}
+
+	// a helper method opening a buffered file of longs for writing
+	private static DataOutputStream writer(Path path, int buffer) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), buffer));
+	}
+
+	// a sequential reader of a file of longs
+	private static final class LongReader implements Closeable {
+		private final DataInputStream in;
+		private long remaining;
+		private long value;
+
+		private LongReader(Path path, int buffer) throws IOException {
+			remaining = Files.size(path) / 8;
+			in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), buffer));
+		}
+
+		// a helper method reading the next long into value, false at the end
+		private boolean next() throws IOException {
+			if (remaining == 0)
+				return false;
+			remaining--;
+			value = in.readLong();
+			return true;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.io.Closeable#close()
+		 */
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	// a sequential reader of a partition file of tuples
+	private static final class TupleReader implements Closeable {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER / TUPLE_BYTES * TUPLE_BYTES);
+		private long remaining;
+		private int anchor;
+		private long key;
+		private long point;
+
+		private TupleReader(Path path) throws IOException {
+			channel = FileChannel.open(path, StandardOpenOption.READ);
+			remaining = channel.size() / TUPLE_BYTES;
+			buffer.limit(0);
+		}
+
+		// a helper method reading the next tuple, false at the end
+		private boolean next() throws IOException {
+			if (remaining == 0)
+				return false;
+			remaining--;
+			if (buffer.remaining() < TUPLE_BYTES) {
+				buffer.compact();
+				while (buffer.position() < TUPLE_BYTES)
+					if (channel.read(buffer) < 0)
+						throw new java.io.EOFException();
+				buffer.flip();
+			}
+			anchor = buffer.getInt();
+			key = buffer.getLong();
+			point = buffer.getLong();
+			return true;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.io.Closeable#close()
+		 */
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	/**
+	 *
+	 * @return number of segments
+	 */
+	public int numberOfSegments() {
+		return segments.size();
+	}
+
+	/**
+	 *
+	 * @return a array of segments that resulted from collinear points
+	 */
+	public LineSegment[] segments() {
+		return segments.toArray(new LineSegment[segments.size()]);
+	}
+
+	public static void main(String[] args) throws IOException {
+		// the budget in megabytes, 64 if not given
+		long budget = (args.length > 1 ? Long.parseLong(args[1]) : 64) << 20;
+		ShardedCollinearPoints collinear = new ShardedCollinearPoints(args[0], budget);
+		StdOut.println("number of segments: " + collinear.numberOfSegments());
+		for (LineSegment segment : collinear.segments())
+			StdOut.println(segment);
+	}
+}